@@ -1,11 +1,11 @@
 package io.salad109.conjunctionapi.conjunction;
 
 import io.salad109.conjunctionapi.conjunction.internal.*;
+import io.salad109.conjunctionapi.satellite.CandidatePairs;
 import io.salad109.conjunctionapi.satellite.PairReductionService;
 import io.salad109.conjunctionapi.satellite.Satellite;
-import io.salad109.conjunctionapi.satellite.SatellitePair;
 import io.salad109.conjunctionapi.satellite.SatelliteService;
-import org.orekit.propagation.analytical.tle.TLEPropagator;
+import io.salad109.conjunctionapi.satellite.ScreeningPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,9 +13,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ConjunctionService {
@@ -46,6 +53,30 @@ public class ConjunctionService {
     @Value("${conjunction.interpolation-stride:1}")
     private int interpolationStride;
 
+    @Value("${conjunction.screening-engine:PAIR_LIST}")
+    private ScreeningEngine screeningEngine;
+
+    @Value("${conjunction.screening-policy:EXCLUDE_DEBRIS}")
+    private ScreeningPolicy screeningPolicy;
+
+    @Value("${conjunction.max-candidate-pairs:20000000}")
+    private long maxCandidatePairs;
+
+    @Value("${conjunction.incremental-screening:false}")
+    private boolean incrementalScreening;
+
+    @Value("${conjunction.incremental-max-shift-hours:7}")
+    private int incrementalMaxShiftHours;
+
+    @Value("${conjunction.incremental-max-changed-fraction:0.5}")
+    private double incrementalMaxChangedFraction;
+
+    // Start of the last full pair list screening, incremental screenings rely on its results for unchanged pairs
+    private volatile OffsetDateTime lastFullScreeningAt;
+
+    // TLE of every satellite as of the last screening whose results were committed
+    private volatile Map<Integer, ScreenedTle> screenedTles = Map.of();
+
     public ConjunctionService(SatelliteService satelliteService,
                               ConjunctionRepository conjunctionRepository,
                               PairReductionService pairReductionService,
@@ -76,22 +107,108 @@ public class ConjunctionService {
         List<Satellite> satellites = satelliteService.getAll();
         log.debug("Loaded {} satellites", satellites.size());
 
-        // Find and filter potential collision pairs
-        List<SatellitePair> pairs = pairReductionService.findPotentialCollisionPairs(satellites, prepassToleranceKm);
-        log.debug("Reduced to {} candidate pairs", pairs.size());
-
         // Build propagators
-        Map<Integer, TLEPropagator> propagators = propagationService.buildPropagators(satellites);
+        PropagatorPool propagators = propagationService.buildPropagators(satellites);
 
         // Scan for conjunctions
-        List<Conjunction> conjunctions = scanService.scanForConjunctions(pairs, propagators, toleranceKm, thresholdKm, lookaheadHours, stepSeconds, interpolationStride);
+        List<Conjunction> conjunctions;
+        OffsetDateTime fullScreeningStart = null;
+        Set<Integer> changed = screeningEngine == ScreeningEngine.PAIR_LIST && canScreenIncrementally()
+                ? changedSinceLastScreening(satellites)
+                : null;
+        if (screeningEngine == ScreeningEngine.SPATIAL_GRID) {
+            conjunctions = scanService.scanCatalogForConjunctions(satellites, screeningPolicy, propagators, toleranceKm, thresholdKm, lookaheadHours, stepSeconds, interpolationStride);
+        } else if (changed != null && changed.size() <= incrementalMaxChangedFraction * satellites.size()) {
+            // Only pairs involving changed satellites, the stored results of all other pairs are still current
+            CandidatePairs pairs = pairReductionService.findPotentialCollisionPairs(satellites, changed, prepassToleranceKm, screeningPolicy, maxCandidatePairs)
+                    .orElseThrow(this::tooManyCandidatePairs);
+            log.info("Incremental screening of {} candidate pairs for {} changed satellites", pairs.size(), changed.size());
+            conjunctions = scanService.scanForConjunctions(pairs, propagators, toleranceKm, thresholdKm, lookaheadHours, stepSeconds, interpolationStride);
+        } else {
+            if (changed != null) {
+                log.info("{} of {} satellites changed, running a full screening", changed.size(), satellites.size());
+            }
+            fullScreeningStart = OffsetDateTime.now(ZoneOffset.UTC);
+
+            // Find and filter potential collision pairs, refusing runs whose pairs and detections would not fit in memory
+            CandidatePairs pairs = pairReductionService.findPotentialCollisionPairs(satellites, prepassToleranceKm, screeningPolicy, maxCandidatePairs)
+                    .orElseThrow(this::tooManyCandidatePairs);
+            log.debug("Reduced to {} candidate pairs", pairs.size());
+            conjunctions = scanService.scanForConjunctions(pairs, propagators, toleranceKm, thresholdKm, lookaheadHours, stepSeconds, interpolationStride);
+        }
 
         // Save all conjunctions (upsert keeps closest per pair)
         if (!conjunctions.isEmpty()) {
             conjunctionRepository.batchUpsertIfCloser(conjunctions);
         }
+        commitScreeningState(satellites, fullScreeningStart);
 
         log.info("Conjunction screening completed in {}ms, found {} conjunctions",
                 System.currentTimeMillis() - startMs, conjunctions.size());
     }
+
+    private IllegalStateException tooManyCandidatePairs() {
+        return new IllegalStateException("More than " + maxCandidatePairs + " candidate pairs under " + screeningPolicy
+                + " screening, raise conjunction.max-candidate-pairs or use a narrower conjunction.screening-policy");
+    }
+
+    /**
+     * Unchanged pairs were last screened over the lookahead window of the last full screening. Once that window has
+     * shifted by more than the allowed hours, too much of the current window is unscreened and a full run is needed.
+     */
+    private boolean canScreenIncrementally() {
+        if (!incrementalScreening || lastFullScreeningAt == null) {
+            return false;
+        }
+        OffsetDateTime fullScreeningDue = lastFullScreeningAt.plusHours(incrementalMaxShiftHours);
+        return OffsetDateTime.now(ZoneOffset.UTC).isBefore(fullScreeningDue);
+    }
+
+    /**
+     * Satellites that are new or whose TLE epoch or entity version differs from the last committed screening.
+     */
+    private Set<Integer> changedSinceLastScreening(List<Satellite> satellites) {
+        Map<Integer, ScreenedTle> screened = screenedTles;
+        Set<Integer> changed = new HashSet<>();
+        for (Satellite sat : satellites) {
+            if (!ScreenedTle.of(sat).equals(screened.get(sat.getNoradCatId()))) {
+                changed.add(sat.getNoradCatId());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Remember what this run screened, but only once its conjunctions are committed. A run that fails or rolls back
+     * leaves the previous state, so its changed satellites are screened again by the next run.
+     */
+    private void commitScreeningState(List<Satellite> satellites, OffsetDateTime fullScreeningStart) {
+        Map<Integer, ScreenedTle> screened = HashMap.newHashMap(satellites.size());
+        for (Satellite sat : satellites) {
+            screened.put(sat.getNoradCatId(), ScreenedTle.of(sat));
+        }
+        Runnable commit = () -> {
+            screenedTles = screened;
+            if (fullScreeningStart != null) {
+                lastFullScreeningAt = fullScreeningStart;
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    commit.run();
+                }
+            });
+        } else {
+            commit.run();
+        }
+    }
+
+    private record ScreenedTle(OffsetDateTime epoch, Long version) {
+        static ScreenedTle of(Satellite sat) {
+            return new ScreenedTle(sat.getEpoch(), sat.getVersion());
+        }
+    }
 }
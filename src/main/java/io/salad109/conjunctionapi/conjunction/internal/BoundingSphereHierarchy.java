@@ -0,0 +1,198 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.stream.IntStream;
+
+/**
+ * Per-satellite hierarchy of bounding spheres over blocks of coarse steps. Level 0 spheres enclose every valid sample
+ * of leafSteps consecutive steps, each higher level encloses two blocks of the level below.
+ * <p>
+ * If two satellites' spheres for the same block are farther apart than the tolerance, every sample pair in that block
+ * is too, so the whole block can be skipped without missing a detection.
+ */
+final class BoundingSphereHierarchy {
+
+    // Absolute slack on every radius so rounding in the sphere maths can never exclude a sample
+    private static final double RADIUS_SLACK_KM = 1e-6;
+    private static final int CENTER_X = 0;
+    private static final int CENTER_Y = 1;
+    private static final int CENTER_Z = 2;
+    private static final int RADIUS = 3;
+
+    private final int leafSteps;
+    private final int totalSteps;
+    // spheres[level][(sat * blockCount(level) + block) * 4 + component], radius < 0 marks a block without valid samples
+    private final double[][] spheres;
+    private final int[] blockCounts;
+
+    private BoundingSphereHierarchy(int leafSteps, int totalSteps, double[][] spheres, int[] blockCounts) {
+        this.leafSteps = leafSteps;
+        this.totalSteps = totalSteps;
+        this.spheres = spheres;
+        this.blockCounts = blockCounts;
+    }
+
+    static BoundingSphereHierarchy build(PositionSource cache, int satelliteCount, int leafSteps) {
+        int totalSteps = cache.totalSteps();
+
+        int levelCount = 1;
+        while (blockCount(totalSteps, leafSteps, levelCount - 1) > 1) {
+            levelCount++;
+        }
+        int levels = levelCount;
+        int[] blockCounts = new int[levels];
+        double[][] spheres = new double[levels][];
+        for (int level = 0; level < levels; level++) {
+            blockCounts[level] = blockCount(totalSteps, leafSteps, level);
+            spheres[level] = new double[satelliteCount * blockCounts[level] * 4];
+        }
+
+        IntStream.range(0, satelliteCount).parallel().forEach(sat -> {
+            for (int block = 0; block < blockCounts[0]; block++) {
+                enclosePositions(cache, sat, block * leafSteps, Math.min(totalSteps, (block + 1) * leafSteps),
+                        spheres[0], (sat * blockCounts[0] + block) * 4);
+            }
+            for (int level = 1; level < levels; level++) {
+                for (int block = 0; block < blockCounts[level]; block++) {
+                    int left = (sat * blockCounts[level - 1] + 2 * block) * 4;
+                    int right = 2 * block + 1 < blockCounts[level - 1] ? left + 4 : -1;
+                    encloseChildren(spheres[level - 1], left, right, spheres[level], (sat * blockCounts[level] + block) * 4);
+                }
+            }
+        });
+
+        return new BoundingSphereHierarchy(leafSteps, totalSteps, spheres, blockCounts);
+    }
+
+    private static int blockCount(int totalSteps, int leafSteps, int level) {
+        long blockSteps = (long) leafSteps << level;
+        return (int) ((totalSteps + blockSteps - 1) / blockSteps);
+    }
+
+    private static void enclosePositions(PositionSource cache, int sat, int fromStep, int toStep, double[] out, int at) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double maxZ = Double.NEGATIVE_INFINITY;
+        for (int step = fromStep; step < toStep; step++) {
+            if (!cache.isValid(sat, step)) continue;
+            double x = cache.x(sat, step);
+            double y = cache.y(sat, step);
+            double z = cache.z(sat, step);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        if (minX > maxX) {
+            out[at + RADIUS] = -1;
+            return;
+        }
+
+        double cx = 0.5 * (minX + maxX);
+        double cy = 0.5 * (minY + maxY);
+        double cz = 0.5 * (minZ + maxZ);
+        double radiusSq = 0;
+        for (int step = fromStep; step < toStep; step++) {
+            if (!cache.isValid(sat, step)) continue;
+            double dx = cache.x(sat, step) - cx;
+            double dy = cache.y(sat, step) - cy;
+            double dz = cache.z(sat, step) - cz;
+            radiusSq = Math.max(radiusSq, dx * dx + dy * dy + dz * dz);
+        }
+        out[at + CENTER_X] = cx;
+        out[at + CENTER_Y] = cy;
+        out[at + CENTER_Z] = cz;
+        out[at + RADIUS] = Math.sqrt(radiusSq) * (1 + 1e-12) + RADIUS_SLACK_KM;
+    }
+
+    private static void encloseChildren(double[] children, int left, int right, double[] out, int at) {
+        boolean hasLeft = children[left + RADIUS] >= 0;
+        boolean hasRight = right >= 0 && children[right + RADIUS] >= 0;
+        if (!hasLeft && !hasRight) {
+            out[at + RADIUS] = -1;
+            return;
+        }
+        if (!hasRight || !hasLeft) {
+            System.arraycopy(children, hasLeft ? left : right, out, at, 4);
+            return;
+        }
+
+        // Center on the bounding box of both spheres, then grow the radius until it covers both
+        double cx = 0.5 * (Math.min(children[left] - children[left + RADIUS], children[right] - children[right + RADIUS])
+                + Math.max(children[left] + children[left + RADIUS], children[right] + children[right + RADIUS]));
+        double cy = 0.5 * (Math.min(children[left + 1] - children[left + RADIUS], children[right + 1] - children[right + RADIUS])
+                + Math.max(children[left + 1] + children[left + RADIUS], children[right + 1] + children[right + RADIUS]));
+        double cz = 0.5 * (Math.min(children[left + 2] - children[left + RADIUS], children[right + 2] - children[right + RADIUS])
+                + Math.max(children[left + 2] + children[left + RADIUS], children[right + 2] + children[right + RADIUS]));
+        double radius = Math.max(
+                distance(cx, cy, cz, children, left) + children[left + RADIUS],
+                distance(cx, cy, cz, children, right) + children[right + RADIUS]);
+
+        out[at + CENTER_X] = cx;
+        out[at + CENTER_Y] = cy;
+        out[at + CENTER_Z] = cz;
+        out[at + RADIUS] = radius * (1 + 1e-12) + RADIUS_SLACK_KM;
+    }
+
+    private static double distance(double x, double y, double z, double[] spheres, int at) {
+        double dx = spheres[at + CENTER_X] - x;
+        double dy = spheres[at + CENTER_Y] - y;
+        double dz = spheres[at + CENTER_Z] - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Report, in ascending order, every step range in which satellites a and b may come within toleranceKm.
+     * Adjacent leaf blocks are merged into one range.
+     */
+    void forEachCandidateRange(int a, int b, double toleranceKm, ScanService.StepRangeConsumer consumer) {
+        int[] pending = {-1, -1};
+        ScanService.StepRangeConsumer merging = (fromStep, toStep) -> {
+            if (pending[1] == fromStep) {
+                pending[1] = toStep;
+                return;
+            }
+            if (pending[0] >= 0) {
+                consumer.accept(pending[0], pending[1]);
+            }
+            pending[0] = fromStep;
+            pending[1] = toStep;
+        };
+
+        int top = spheres.length - 1;
+        for (int block = 0; block < blockCounts[top]; block++) {
+            visit(top, block, a, b, toleranceKm, merging);
+        }
+        if (pending[0] >= 0) {
+            consumer.accept(pending[0], pending[1]);
+        }
+    }
+
+    private void visit(int level, int block, int a, int b, double toleranceKm, ScanService.StepRangeConsumer consumer) {
+        double[] levelSpheres = spheres[level];
+        int atA = (a * blockCounts[level] + block) * 4;
+        int atB = (b * blockCounts[level] + block) * 4;
+        double radiusA = levelSpheres[atA + RADIUS];
+        double radiusB = levelSpheres[atB + RADIUS];
+        if (radiusA < 0 || radiusB < 0) return;
+
+        double dx = levelSpheres[atA + CENTER_X] - levelSpheres[atB + CENTER_X];
+        double dy = levelSpheres[atA + CENTER_Y] - levelSpheres[atB + CENTER_Y];
+        double dz = levelSpheres[atA + CENTER_Z] - levelSpheres[atB + CENTER_Z];
+        double reach = toleranceKm + radiusA + radiusB;
+        if (dx * dx + dy * dy + dz * dz > reach * reach) return;
+
+        if (level == 0) {
+            consumer.accept(block * leafSteps, Math.min(totalSteps, (block + 1) * leafSteps));
+            return;
+        }
+        visit(level - 1, 2 * block, a, b, toleranceKm, consumer);
+        if (2 * block + 1 < blockCounts[level - 1]) {
+            visit(level - 1, 2 * block + 1, a, b, toleranceKm, consumer);
+        }
+    }
+}
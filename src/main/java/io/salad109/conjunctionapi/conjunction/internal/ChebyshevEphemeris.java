@@ -0,0 +1,230 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Piecewise Chebyshev ephemeris. For every satellite the span is split into equal segments, and in each segment every
+ * coordinate is a Chebyshev series fitted to SGP4 positions at the segment's Chebyshev nodes. A position or velocity
+ * at any time of the span then costs one recurrence per coordinate, and a satellite takes a few coefficients per
+ * segment instead of a position per step.
+ * <p>
+ * Time is in seconds since scan start, positions in km and velocities in km/s. A segment with a node that could not be
+ * propagated is invalid, and so are its positions.
+ */
+final class ChebyshevEphemeris {
+
+    private final Map<Integer, Integer> noradIdToArrayId;
+    private final double startSeconds;
+    private final double segmentSeconds;
+    private final int segments;
+    private final int order;
+    // Coefficients of sat, segment, axis at ((sat * segments + segment) * 3 + axis) * order, the first one halved
+    private final double[] coefficients;
+    // cos(pi k (j + 1/2) / order) at k * order + j, maps node samples to coefficients
+    private final double[] fitMatrix;
+
+    /**
+     * Empty ephemeris over [startSeconds, endSeconds], with segments of at most maxSegmentSeconds and series of the
+     * given degree.
+     */
+    ChebyshevEphemeris(Map<Integer, Integer> noradIdToArrayId, double startSeconds, double endSeconds,
+                       double maxSegmentSeconds, int degree) {
+        this.noradIdToArrayId = noradIdToArrayId;
+        this.startSeconds = startSeconds;
+        this.segments = Math.max(1, (int) Math.ceil((endSeconds - startSeconds) / maxSegmentSeconds));
+        this.segmentSeconds = (endSeconds - startSeconds) / segments;
+        this.order = degree + 1;
+        long length = 3L * noradIdToArrayId.size() * segments * order;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Chebyshev ephemeris for " + noradIdToArrayId.size()
+                    + " satellites and " + segments + " segments exceeds the maximum array size");
+        }
+        this.coefficients = new double[(int) length];
+        Arrays.fill(coefficients, Double.NaN);
+
+        this.fitMatrix = new double[order * order];
+        for (int k = 0; k < order; k++) {
+            for (int j = 0; j < order; j++) {
+                fitMatrix[k * order + j] = Math.cos(Math.PI * k * (j + 0.5) / order);
+            }
+        }
+    }
+
+    Map<Integer, Integer> noradIdToArrayId() {
+        return noradIdToArrayId;
+    }
+
+    int segments() {
+        return segments;
+    }
+
+    /**
+     * Number of SGP4 positions each segment is fitted to.
+     */
+    int nodes() {
+        return order;
+    }
+
+    /**
+     * Time of node j of a segment, the nodes being the roots of the Chebyshev polynomial of degree + 1.
+     */
+    double nodeSeconds(int segment, int node) {
+        double x = Math.cos(Math.PI * (node + 0.5) / order);
+        return startSeconds + (segment + 0.5 * (x + 1)) * segmentSeconds;
+    }
+
+    /**
+     * Fit one segment of a satellite to its positions at the nodes, x, y, z interleaved per node. A NaN sample leaves
+     * the segment invalid.
+     */
+    void fit(int sat, int segment, double[] samples) {
+        int base = (sat * segments + segment) * 3 * order;
+        for (int axis = 0; axis < 3; axis++) {
+            for (int k = 0; k < order; k++) {
+                double sum = 0;
+                for (int j = 0; j < order; j++) {
+                    sum += samples[3 * j + axis] * fitMatrix[k * order + j];
+                }
+                coefficients[base + axis * order + k] = (k == 0 ? 1.0 : 2.0) * sum / order;
+            }
+        }
+    }
+
+    boolean isValid(int sat, double seconds) {
+        return !Double.isNaN(coefficients[coefficientBase(sat, segmentOf(seconds))]);
+    }
+
+    /**
+     * One position coordinate at the given time, NaN if invalid.
+     */
+    double coordinate(int sat, double seconds, int axis) {
+        int segment = segmentOf(seconds);
+        double tau = tau(seconds, segment);
+        return clenshaw(coefficientBase(sat, segment) + axis * order, tau);
+    }
+
+    /**
+     * Write the position to out[at..at+2] and, if withVelocity, the velocity to out[at+3..at+5]. Returns false if
+     * the segment is invalid.
+     */
+    boolean state(int sat, double seconds, double[] out, int at, boolean withVelocity) {
+        int segment = segmentOf(seconds);
+        int base = coefficientBase(sat, segment);
+        if (Double.isNaN(coefficients[base])) {
+            return false;
+        }
+        double tau = tau(seconds, segment);
+        // d tau / dt
+        double scale = 2 / segmentSeconds;
+        for (int axis = 0; axis < 3; axis++) {
+            out[at + axis] = clenshaw(base + axis * order, tau);
+            if (withVelocity) {
+                out[at + 3 + axis] = scale * derivative(base + axis * order, tau);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Squared distance between two satellites at the given time, NaN if either is invalid.
+     */
+    double distanceSquared(int a, int b, double seconds) {
+        int segment = segmentOf(seconds);
+        double tau = tau(seconds, segment);
+        int baseA = coefficientBase(a, segment);
+        int baseB = coefficientBase(b, segment);
+        double dx = clenshaw(baseA, tau) - clenshaw(baseB, tau);
+        double dy = clenshaw(baseA + order, tau) - clenshaw(baseB + order, tau);
+        double dz = clenshaw(baseA + 2 * order, tau) - clenshaw(baseB + 2 * order, tau);
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Same as {@link #distanceSquared(int, int, double)}, but returns the partial sum as soon as it exceeds tolSq, so
+     * pairs far apart on the first axis only evaluate that one.
+     */
+    double distanceSquared(int a, int b, double seconds, double tolSq) {
+        int segment = segmentOf(seconds);
+        double tau = tau(seconds, segment);
+        int baseA = coefficientBase(a, segment);
+        int baseB = coefficientBase(b, segment);
+        double dx = clenshaw(baseA, tau) - clenshaw(baseB, tau);
+        double dxSq = dx * dx;
+        if (dxSq > tolSq) return dxSq;
+
+        double dy = clenshaw(baseA + order, tau) - clenshaw(baseB + order, tau);
+        double dySq = dxSq + dy * dy;
+        if (dySq > tolSq) return dySq;
+
+        double dz = clenshaw(baseA + 2 * order, tau) - clenshaw(baseB + 2 * order, tau);
+        return dySq + dz * dz;
+    }
+
+    /**
+     * Estimate, not a bound, of the largest position error of the fits in km, from the size of the two highest order
+     * coefficients. A converged series drops off geometrically, so what was truncated is usually smaller than what
+     * was kept last, a series that has not converged yet can exceed it.
+     */
+    double estimatedErrorKm() {
+        double maxErrorSq = 0;
+        for (int base = 0; base < coefficients.length; base += 3 * order) {
+            if (Double.isNaN(coefficients[base])) continue;
+            double errorSq = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                int last = base + axis * order + order - 1;
+                double tail = Math.abs(coefficients[last]) + (order > 1 ? Math.abs(coefficients[last - 1]) : 0);
+                errorSq += tail * tail;
+            }
+            maxErrorSq = Math.max(maxErrorSq, errorSq);
+        }
+        return Math.sqrt(maxErrorSq);
+    }
+
+    /**
+     * Number of coefficients held, for comparison with the positions of a step-sampled cache.
+     */
+    long size() {
+        return coefficients.length;
+    }
+
+    // Times before and after the span are extrapolated from the first and last segment
+    private int segmentOf(double seconds) {
+        int segment = (int) Math.floor((seconds - startSeconds) / segmentSeconds);
+        return Math.clamp(segment, 0, segments - 1);
+    }
+
+    private double tau(double seconds, int segment) {
+        return 2 * (seconds - startSeconds - segment * segmentSeconds) / segmentSeconds - 1;
+    }
+
+    private int coefficientBase(int sat, int segment) {
+        return (sat * segments + segment) * 3 * order;
+    }
+
+    // Sum of c_k T_k(tau) with the first coefficient already halved
+    private double clenshaw(int from, double tau) {
+        double b1 = 0;
+        double b2 = 0;
+        for (int k = order - 1; k >= 1; k--) {
+            double b0 = 2 * tau * b1 - b2 + coefficients[from + k];
+            b2 = b1;
+            b1 = b0;
+        }
+        return tau * b1 - b2 + coefficients[from];
+    }
+
+    // Sum of c_k T_k'(tau), with T_k' = k U_(k-1)
+    private double derivative(int from, double tau) {
+        double sum = 0;
+        double uPrevious = 0;
+        double u = 1;
+        for (int k = 1; k < order; k++) {
+            sum += k * coefficients[from + k] * u;
+            double uNext = 2 * tau * u - uPrevious;
+            uPrevious = u;
+            u = uNext;
+        }
+        return sum;
+    }
+}
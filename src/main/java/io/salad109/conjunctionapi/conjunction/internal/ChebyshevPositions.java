@@ -0,0 +1,79 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Map;
+
+/**
+ * Positions evaluated from a {@link ChebyshevEphemeris} at the time of each step, none are stored. Trades a few
+ * multiply-adds per read for a fraction of the memory of a step-sampled cache, and keeps the ephemeris for refinement.
+ */
+final class ChebyshevPositions implements PositionSource {
+
+    // The fit error is estimated from the last coefficients, not bounded, so the padding takes a multiple of it. With
+    // the default segments, on LEO, eccentric and decaying test catalogs, the multiple came out 10 to 50 times the
+    // largest error at any step.
+    private static final double ERROR_SAFETY_FACTOR = 10;
+
+    private final ChebyshevEphemeris ephemeris;
+    private final int totalSteps;
+    private final double stepSeconds;
+    private final double errorBoundKm;
+
+    ChebyshevPositions(ChebyshevEphemeris ephemeris, int totalSteps, double stepSeconds) {
+        this.ephemeris = ephemeris;
+        this.totalSteps = totalSteps;
+        this.stepSeconds = stepSeconds;
+        this.errorBoundKm = ERROR_SAFETY_FACTOR * ephemeris.estimatedErrorKm();
+    }
+
+    /**
+     * Ephemeris behind the positions, or null if they are stored per step.
+     */
+    static ChebyshevEphemeris ephemerisOf(PositionSource positions) {
+        return positions instanceof ChebyshevPositions chebyshev ? chebyshev.ephemeris : null;
+    }
+
+    @Override
+    public Map<Integer, Integer> noradIdToArrayId() {
+        return ephemeris.noradIdToArrayId();
+    }
+
+    @Override
+    public int totalSteps() {
+        return totalSteps;
+    }
+
+    @Override
+    public double x(int sat, int step) {
+        return ephemeris.coordinate(sat, step * stepSeconds, 0);
+    }
+
+    @Override
+    public double y(int sat, int step) {
+        return ephemeris.coordinate(sat, step * stepSeconds, 1);
+    }
+
+    @Override
+    public double z(int sat, int step) {
+        return ephemeris.coordinate(sat, step * stepSeconds, 2);
+    }
+
+    @Override
+    public boolean isValid(int sat, int step) {
+        return ephemeris.isValid(sat, step * stepSeconds);
+    }
+
+    @Override
+    public double distanceSquaredAt(int a, int b, int step, double tolSq) {
+        return ephemeris.distanceSquared(a, b, step * stepSeconds, tolSq);
+    }
+
+    /**
+     * Estimated truncation error of the fits times a safety factor, positions are not rounded further. An estimate,
+     * not a bound: a segment whose series has not converged, such as one of an object decaying through the
+     * atmosphere, can exceed it.
+     */
+    @Override
+    public double positionErrorBoundKm() {
+        return errorBoundKm;
+    }
+}
@@ -1,11 +1,11 @@
 package io.salad109.conjunctionapi.conjunction.internal;
 
+import io.salad109.conjunctionapi.satellite.CandidatePairs;
 import io.salad109.conjunctionapi.satellite.PairReductionService;
 import io.salad109.conjunctionapi.satellite.Satellite;
-import io.salad109.conjunctionapi.satellite.SatellitePair;
 import io.salad109.conjunctionapi.satellite.SatelliteService;
+import io.salad109.conjunctionapi.satellite.ScreeningPolicy;
 import org.jspecify.annotations.NonNull;
-import org.orekit.propagation.analytical.tle.TLEPropagator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -24,7 +24,6 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -63,7 +62,7 @@ public class ConjunctionBenchmark implements CommandLineRunner {
                 .truncatedTo(ChronoUnit.DAYS);
         log.info("Using fixed start time: {}", fixedStartTime);
 
-        Map<Integer, TLEPropagator> propagators = propagationService.buildPropagators(satellites);
+        PropagatorPool propagators = propagationService.buildPropagators(satellites);
         log.info("Built {} propagators", propagators.size());
         log.info("");
 
@@ -100,7 +99,7 @@ public class ConjunctionBenchmark implements CommandLineRunner {
 
     private BenchmarkResult runBenchmark(
             List<Satellite> satellites,
-            Map<Integer, TLEPropagator> propagators,
+            PropagatorPool propagators,
             OffsetDateTime startTime,
             double toleranceKm,
             double prepassToleranceKm,
@@ -114,22 +113,19 @@ public class ConjunctionBenchmark implements CommandLineRunner {
         log.info("Running: {}", name);
         long benchmarkStart = System.nanoTime();
 
-        List<SatellitePair> pairs = pairReductionService.findPotentialCollisionPairs(satellites, prepassToleranceKm);
+        CandidatePairs pairs = pairReductionService.findPotentialCollisionPairs(satellites, prepassToleranceKm, ScreeningPolicy.EXCLUDE_DEBRIS);
         log.info("{} candidate pairs", pairs.size());
 
         long coarseStart = System.nanoTime();
-        List<ScanService.CoarseDetection> detections = scanService.coarseSweep(pairs, propagators, startTime, toleranceKm, stepSeconds, lookaheadHours, interpolationStride);
+        ScanClock clock = propagationService.startClock(startTime);
+        ScanService.SweepResult sweep = scanService.coarseSweep(pairs, propagators, clock, toleranceKm, stepSeconds, lookaheadHours, interpolationStride);
         long coarseTime = System.nanoTime() - coarseStart;
 
-        Map<SatellitePair, List<List<ScanService.CoarseDetection>>> eventsByPair = scanService.groupIntoEvents(detections, stepSeconds);
-        int totalEvents = eventsByPair.values().stream().mapToInt(List::size).sum();
-
-        List<List<ScanService.CoarseDetection>> allEvents = eventsByPair.values().stream()
-                .flatMap(List::stream)
-                .toList();
+        List<ScanService.CoarseEvent> allEvents = sweep.events();
+        int totalEvents = allEvents.size();
 
         long refineStart = System.nanoTime();
-        List<Conjunction> refined = allEvents.parallelStream().map(event -> scanService.refineEvent(event, propagators, stepSeconds, thresholdKm))
+        List<Conjunction> refined = allEvents.parallelStream().map(event -> scanService.refineEvent(event, propagators, clock, stepSeconds, thresholdKm, sweep.ephemeris()))
                 .filter(c -> c.getMissDistanceKm() <= thresholdKm)
                 .toList();
         long refineTime = System.nanoTime() - refineStart;
@@ -148,10 +144,10 @@ public class ConjunctionBenchmark implements CommandLineRunner {
         long totalTime = System.nanoTime() - benchmarkStart;
 
         log.info(" -> {} detections, {} events, {} conjunctions, {} dedup in {}ms",
-                detections.size(), totalEvents, refined.size(), deduplicated.size(), totalTime / 1_000_000);
+                sweep.detectionCount(), totalEvents, refined.size(), deduplicated.size(), totalTime / 1_000_000);
 
         return new BenchmarkResult(name, toleranceKm, prepassToleranceKm, stepSeconds, stepSecondRatio,
-                interpolationStride, detections.size(), totalEvents,
+                interpolationStride, sweep.detectionCount(), totalEvents,
                 refined.size(), deduplicated.size(), coarseTime, refineTime, totalTime);
     }
 
@@ -0,0 +1,24 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+/**
+ * Cubic Hermite interpolation of one coordinate between two samples h seconds apart, from the positions and velocities
+ * at both samples. Matches position and velocity at both ends, so the curvature of an orbit is followed across
+ * intervals where a straight line between the samples would cut the arc.
+ */
+final class CubicHermite {
+
+    private CubicHermite() {
+    }
+
+    /**
+     * Coordinate at fraction t in [0, 1] of the interval, velocities in units of the coordinate per second.
+     */
+    static double interpolate(double p0, double v0, double p1, double v1, double h, double t) {
+        double t2 = t * t;
+        double t3 = t2 * t;
+        return (2 * t3 - 3 * t2 + 1) * p0
+                + (t3 - 2 * t2 + t) * h * v0
+                + (3 * t2 - 2 * t3) * p1
+                + (t3 - t2) * h * v1;
+    }
+}
@@ -0,0 +1,97 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Growable column store of coarse detections, one long key and one squared distance per detection.
+ * Each sweep task fills its own buffer, so adding never allocates beyond the occasional array growth.
+ */
+final class DetectionBuffer {
+
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private long[] keys;
+    private double[] distancesSq;
+    private int size;
+
+    DetectionBuffer() {
+        this(1024);
+    }
+
+    DetectionBuffer(int capacity) {
+        this.keys = new long[Math.max(1, capacity)];
+        this.distancesSq = new double[Math.max(1, capacity)];
+    }
+
+    void add(long key, double distanceSq) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            distancesSq = Arrays.copyOf(distancesSq, size * 2);
+        }
+        keys[size] = key;
+        distancesSq[size] = distanceSq;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long key(int i) {
+        return keys[i];
+    }
+
+    double distanceSq(int i) {
+        return distancesSq[i];
+    }
+
+    static DetectionBuffer merge(Collection<DetectionBuffer> buffers) {
+        int total = buffers.stream().mapToInt(DetectionBuffer::size).sum();
+        DetectionBuffer merged = new DetectionBuffer(total);
+        for (DetectionBuffer buffer : buffers) {
+            System.arraycopy(buffer.keys, 0, merged.keys, merged.size, buffer.size);
+            System.arraycopy(buffer.distancesSq, 0, merged.distancesSq, merged.size, buffer.size);
+            merged.size += buffer.size;
+        }
+        return merged;
+    }
+
+    /**
+     * Sort by key ascending with an LSD radix sort, only over the digits the largest key uses.
+     * Keys must be non-negative.
+     */
+    void sortByKey() {
+        long maxKey = 0;
+        for (int i = 0; i < size; i++) {
+            maxKey = Math.max(maxKey, keys[i]);
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(maxKey);
+
+        long[] sortedKeys = new long[size];
+        double[] sortedDistancesSq = new double[size];
+        int[] offsets = new int[RADIX + 1];
+        for (int shift = 0; shift < bits; shift += RADIX_BITS) {
+            Arrays.fill(offsets, 0);
+            for (int i = 0; i < size; i++) {
+                offsets[(int) ((keys[i] >>> shift) & (RADIX - 1)) + 1]++;
+            }
+            for (int digit = 0; digit < RADIX; digit++) {
+                offsets[digit + 1] += offsets[digit];
+            }
+            for (int i = 0; i < size; i++) {
+                int at = offsets[(int) ((keys[i] >>> shift) & (RADIX - 1))]++;
+                sortedKeys[at] = keys[i];
+                sortedDistancesSq[at] = distancesSq[i];
+            }
+
+            long[] swapKeys = keys;
+            keys = sortedKeys;
+            sortedKeys = swapKeys;
+            double[] swapDistances = distancesSq;
+            distancesSq = sortedDistancesSq;
+            sortedDistancesSq = swapDistances;
+        }
+    }
+}
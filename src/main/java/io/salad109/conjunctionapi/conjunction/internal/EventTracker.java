@@ -0,0 +1,155 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import io.salad109.conjunctionapi.satellite.Satellite;
+import io.salad109.conjunctionapi.satellite.SatellitePair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the in-tolerance samples of one pair, fed in ascending step order, into one event per local minimum of the
+ * sampled distance. A step without a sample counts as farther than any sample, since it was either out of tolerance,
+ * skipped because it could not be in tolerance, or not propagated.
+ * <p>
+ * Each event carries the squared distances one step before and after its minimum, read back from the cache, so
+ * refinement can centre its search on the vertex of the parabola through the three samples. The pair's entities are
+ * only looked up when it has an event.
+ * <p>
+ * The cache may hold a chunk of the scan starting at firstStep: samples come in with steps of the chunk, events go out
+ * with steps of the scan. A run still open at the end of a chunk is suspended and resumed in the next one, with the
+ * sample before it that the next chunk no longer holds.
+ */
+final class EventTracker implements ScanService.StepHitConsumer {
+
+    private final PositionSource cache;
+    private final int firstStep;
+    private final Satellite[] satellitesByArrayId;
+    private final List<ScanService.CoarseEvent> events = new ArrayList<>();
+    private long sampleCount;
+
+    private int a;
+    private int b;
+    private int lastStep = Integer.MIN_VALUE;
+    private double lastDistSq;
+    private int beforeStep = Integer.MIN_VALUE;
+    private double beforeDistSq;
+    // Sample carried over from the previous chunk, for the step before a resumed run
+    private int carriedStep = Integer.MIN_VALUE;
+    private double carriedDistSq;
+
+    EventTracker(PositionSource cache, Satellite[] satellitesByArrayId) {
+        this(cache, 0, satellitesByArrayId);
+    }
+
+    EventTracker(PositionSource cache, int firstStep, Satellite[] satellitesByArrayId) {
+        this.cache = cache;
+        this.firstStep = firstStep;
+        this.satellitesByArrayId = satellitesByArrayId;
+    }
+
+    List<ScanService.CoarseEvent> events() {
+        return events;
+    }
+
+    long sampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Take over the events and sample count of a tracker that swept other pairs of the same cache.
+     */
+    void merge(EventTracker other) {
+        events.addAll(other.events);
+        sampleCount += other.sampleCount;
+    }
+
+    /**
+     * Start tracking a new pair, a and b being its array ids in the cache.
+     */
+    void reset(int a, int b) {
+        this.a = a;
+        this.b = b;
+        this.lastStep = Integer.MIN_VALUE;
+        this.beforeStep = Integer.MIN_VALUE;
+        this.carriedStep = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Start tracking a pair where a previous chunk left it, or from scratch if run is null.
+     */
+    void resume(int a, int b, OpenRun run) {
+        reset(a, b);
+        if (run != null) {
+            lastStep = run.lastStep();
+            lastDistSq = run.lastDistSq();
+            beforeStep = run.beforeStep();
+            beforeDistSq = run.beforeDistSq();
+            carriedStep = run.lastStep() - 1;
+            carriedDistSq = run.previousDistSq();
+        }
+    }
+
+    /**
+     * End the chunk for this pair. A sample on the last step of the cache cannot be decided before the next chunk, so
+     * it is returned as an open run, anything else is finished. Returns null if nothing is left open.
+     */
+    OpenRun suspend() {
+        if (lastStep != firstStep + cache.totalSteps() - 1) {
+            finish();
+            return null;
+        }
+        OpenRun run = new OpenRun(lastStep, lastDistSq, beforeStep, beforeDistSq, sampleAt(lastStep - 1));
+        lastStep = Integer.MIN_VALUE;
+        return run;
+    }
+
+    @Override
+    public void accept(int chunkStep, double distSq) {
+        int step = firstStep + chunkStep;
+        sampleCount++;
+        if (lastStep != Integer.MIN_VALUE) {
+            decideLast(step == lastStep + 1 ? distSq : Double.POSITIVE_INFINITY);
+        }
+        beforeStep = lastStep;
+        beforeDistSq = lastDistSq;
+        lastStep = step;
+        lastDistSq = distSq;
+    }
+
+    /**
+     * Emit the pending event, if any, once the pair has no more samples.
+     */
+    void finish() {
+        if (lastStep != Integer.MIN_VALUE) {
+            decideLast(Double.POSITIVE_INFINITY);
+        }
+        lastStep = Integer.MIN_VALUE;
+    }
+
+    private void decideLast(double afterDistSq) {
+        double previousDistSq = beforeStep == lastStep - 1 ? beforeDistSq : Double.POSITIVE_INFINITY;
+        if (lastDistSq <= previousDistSq && lastDistSq < afterDistSq) {
+            SatellitePair pair = new SatellitePair(satellitesByArrayId[a], satellitesByArrayId[b]);
+            events.add(new ScanService.CoarseEvent(pair, lastStep, Math.sqrt(lastDistSq),
+                    sampleAt(lastStep - 1), sampleAt(lastStep + 1)));
+        }
+    }
+
+    private double sampleAt(int step) {
+        if (step == carriedStep) {
+            return carriedDistSq;
+        }
+        int chunkStep = step - firstStep;
+        if (chunkStep < 0 || chunkStep >= cache.totalSteps() || !cache.validAt(a, b, chunkStep)) {
+            return Double.NaN;
+        }
+        return cache.distanceSquaredAt(a, b, chunkStep, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Tracking state of a pair whose last sample is on the last step of a chunk, with the squared distance one step
+     * before that sample (NaN if not available).
+     */
+    record OpenRun(int lastStep, double lastDistSq, int beforeStep, double beforeDistSq, double previousDistSq) {
+    }
+}
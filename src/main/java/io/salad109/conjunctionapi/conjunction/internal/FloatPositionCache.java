@@ -0,0 +1,87 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Position cache held in a single on-heap float array, half the memory and bandwidth of {@link HeapPositionCache}.
+ * Distances are still computed in double precision from the stored components.
+ * <p>
+ * Error bound: a stride point is rounded once (at most half an ulp), an interpolated point inherits that error and is
+ * rounded again, so every stored component is within one float ulp of the largest stored magnitude of the double
+ * path. A position is therefore within sqrt(3) ulp, see {@link #positionErrorBoundKm()}.
+ */
+final class FloatPositionCache extends PositionCache {
+
+    private final float[] positions;
+    private final int axis;
+    // Scanned once the cache is filled, NaN until then
+    private double errorBoundKm = Double.NaN;
+
+    FloatPositionCache(Map<Integer, Integer> noradIdToArrayId, int totalSteps, Layout layout) {
+        super(noradIdToArrayId, totalSteps, layout);
+        long length = length(noradIdToArrayId.size(), totalSteps);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Position cache for " + noradIdToArrayId.size() + " satellites and "
+                    + totalSteps + " steps exceeds the maximum array size, use the MAPPED ephemeris store");
+        }
+        this.positions = new float[(int) length];
+        this.axis = (int) axisStride;
+        Arrays.fill(positions, Float.NaN);
+    }
+
+    @Override
+    protected double read(long index) {
+        return positions[(int) index];
+    }
+
+    @Override
+    protected void write(long index, double value) {
+        positions[(int) index] = (float) value;
+    }
+
+    @Override
+    public double distanceSquaredAt(int a, int b, int step, double tolSq) {
+        int offsetA = (int) offset(a, step);
+        int offsetB = (int) offset(b, step);
+
+        double dx = (double) positions[offsetA] - positions[offsetB];
+        double dxSq = dx * dx;
+        if (dxSq > tolSq) return dxSq;
+
+        double dy = (double) positions[offsetA + axis] - positions[offsetB + axis];
+        double dySq = dxSq + dy * dy;
+        if (dySq > tolSq) return dySq;
+
+        double dz = (double) positions[offsetA + 2 * axis] - positions[offsetB + 2 * axis];
+        return dySq + dz * dz;
+    }
+
+    @Override
+    public boolean validAt(int a, int b, int step) {
+        return !Float.isNaN(positions[(int) offset(a, step)]) && !Float.isNaN(positions[(int) offset(b, step)]);
+    }
+
+    /**
+     * Bound from the largest stored magnitude, scanned on the first call, so only called once the cache is filled.
+     * Threads racing on the first call compute the same value.
+     */
+    @Override
+    public double positionErrorBoundKm() {
+        if (Double.isNaN(errorBoundKm)) {
+            errorBoundKm = scanErrorBoundKm();
+        }
+        return errorBoundKm;
+    }
+
+    private double scanErrorBoundKm() {
+        float maxAbs = 0;
+        for (float component : positions) {
+            if (Math.abs(component) > maxAbs) {
+                maxAbs = Math.abs(component);
+            }
+        }
+        // Round the magnitude up so the ulp covers values that were rounded down into maxAbs
+        return Math.sqrt(3) * Math.ulp(Math.nextUp(maxAbs));
+    }
+}
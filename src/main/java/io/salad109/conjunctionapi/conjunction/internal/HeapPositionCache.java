@@ -0,0 +1,65 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Position cache held in a single on-heap double array. Limited to 2^31 - 1 components.
+ */
+final class HeapPositionCache extends PositionCache {
+
+    private final double[] positions;
+    private final int axis;
+
+    HeapPositionCache(Map<Integer, Integer> noradIdToArrayId, int totalSteps, Layout layout) {
+        super(noradIdToArrayId, totalSteps, layout);
+        long length = length(noradIdToArrayId.size(), totalSteps);
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Position cache for " + noradIdToArrayId.size() + " satellites and "
+                    + totalSteps + " steps exceeds the maximum array size, use the MAPPED ephemeris store");
+        }
+        this.positions = new double[(int) length];
+        this.axis = (int) axisStride;
+        Arrays.fill(positions, Double.NaN);
+    }
+
+    double[] positions() {
+        return positions;
+    }
+
+    int axisStride() {
+        return axis;
+    }
+
+    @Override
+    protected double read(long index) {
+        return positions[(int) index];
+    }
+
+    @Override
+    protected void write(long index, double value) {
+        positions[(int) index] = value;
+    }
+
+    @Override
+    public double distanceSquaredAt(int a, int b, int step, double tolSq) {
+        int offsetA = (int) offset(a, step);
+        int offsetB = (int) offset(b, step);
+
+        double dx = positions[offsetA] - positions[offsetB];
+        double dxSq = dx * dx;
+        if (dxSq > tolSq) return dxSq;
+
+        double dy = positions[offsetA + axis] - positions[offsetB + axis];
+        double dySq = dxSq + dy * dy;
+        if (dySq > tolSq) return dySq;
+
+        double dz = positions[offsetA + 2 * axis] - positions[offsetB + 2 * axis];
+        return dySq + dz * dz;
+    }
+
+    @Override
+    public boolean validAt(int a, int b, int step) {
+        return !Double.isNaN(positions[(int) offset(a, step)]) && !Double.isNaN(positions[(int) offset(b, step)]);
+    }
+}
@@ -0,0 +1,67 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Position cache held in a memory-mapped temporary file, so ephemeris size is bounded by disk and page cache rather
+ * than by -Xmx. The file is deleted as soon as it is mapped, and the mapping is unmapped when the cache is closed.
+ * <p>
+ * The mapping belongs to a shared arena, since the sweep reads it from every thread of the pool. Mapping into an arena
+ * is a preview API in Java 21, the build and the runtime enable previews.
+ */
+final class MappedPositionCache extends PositionCache {
+
+    private final Arena arena;
+    private final MemorySegment positions;
+
+    MappedPositionCache(Map<Integer, Integer> noradIdToArrayId, int totalSteps, Layout layout, Path directory) {
+        super(noradIdToArrayId, totalSteps, layout);
+        long length = length(noradIdToArrayId.size(), totalSteps);
+
+        this.arena = Arena.ofShared();
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "ephemeris-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                this.positions = channel.map(FileChannel.MapMode.READ_WRITE, 0, length * Double.BYTES, arena);
+            }
+        } catch (IOException e) {
+            arena.close();
+            throw new UncheckedIOException("Failed to map ephemeris file in " + directory, e);
+        }
+
+        for (long i = 0; i < length; i++) {
+            positions.setAtIndex(ValueLayout.JAVA_DOUBLE, i, Double.NaN);
+        }
+    }
+
+    @Override
+    protected double read(long index) {
+        return positions.getAtIndex(ValueLayout.JAVA_DOUBLE, index);
+    }
+
+    @Override
+    protected void write(long index, double value) {
+        positions.setAtIndex(ValueLayout.JAVA_DOUBLE, index, value);
+    }
+
+    /**
+     * Unmap the file, its pages are released right away. The cache must not be read afterwards.
+     */
+    @Override
+    public void close() {
+        if (arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import io.salad109.conjunctionapi.satellite.Sgp4Coefficients;
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.time.AbsoluteDate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.A3OVK2;
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.CK2;
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.EARTH_RADIUS_KM;
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.XKE;
+
+/**
+ * Near-Earth SGP4 that writes TEME positions into caller-owned arrays instead of allocating PVCoordinates. The
+ * initialization state is kept in structure-of-arrays form, one flat column per coefficient indexed by satellite, so
+ * a block of satellites can be evaluated lane by lane (see {@link VectorSgp4}).
+ * <p>
+ * The initialization is {@link Sgp4Coefficients}, the formulation and Kepler solver are the ones of Orekit's
+ * TLEPropagator and SGP4, so positions agree with Orekit to rounding. Deep-space satellites (period of 225 minutes or more) need the SDP4 lunar-solar
+ * terms and are not initialized here, {@link #supports(int)} is false for them and callers keep using Orekit.
+ */
+final class NativeSgp4 {
+
+    static final double TWO_PI = 2 * Math.PI;
+    static final double KEPLER_EPSILON = 1e-12;
+    static final int KEPLER_MAX_ITERATIONS = 10;
+
+    // Coefficient columns
+    static final int E0 = 0;
+    static final int I0 = 1;
+    static final int M0 = 2;
+    static final int ARGP0 = 3;
+    static final int RAAN0 = 4;
+    static final int BSTAR = 5;
+    static final int COSI0 = 6;
+    static final int SINI0 = 7;
+    static final int A0DP = 8;
+    static final int XN0DP = 9;
+    static final int ETA = 10;
+    static final int XMDOT = 11;
+    static final int OMGDOT = 12;
+    static final int XNODOT = 13;
+    static final int XNODCF = 14;
+    static final int C1 = 15;
+    static final int C4 = 16;
+    static final int C5 = 17;
+    static final int T2COF = 18;
+    static final int T3COF = 19;
+    static final int T4COF = 20;
+    static final int T5COF = 21;
+    static final int D2 = 22;
+    static final int D3 = 23;
+    static final int D4 = 24;
+    static final int OMGCOF = 25;
+    static final int XMCOF = 26;
+    static final int DELM0 = 27;
+    static final int SINM0 = 28;
+    static final int XLCOF = 29;
+    static final int AYCOF = 30;
+    static final int COEFFICIENTS = 31;
+
+    private final Map<Integer, Integer> indexByNoradId;
+    private final AbsoluteDate[] epochs;
+    private final boolean[] nearEarth;
+    private final double[][] columns;
+
+    NativeSgp4(Map<Integer, TLE> tles) {
+        this(tles.size());
+        int index = 0;
+        for (Map.Entry<Integer, TLE> entry : tles.entrySet()) {
+            indexByNoradId.put(entry.getKey(), index);
+            epochs[index] = entry.getValue().getDate();
+            nearEarth[index] = initialize(entry.getValue(), columns, index);
+            index++;
+        }
+    }
+
+    private NativeSgp4(int size) {
+        this.indexByNoradId = HashMap.newHashMap(size);
+        this.epochs = new AbsoluteDate[size];
+        this.nearEarth = new boolean[size];
+        this.columns = new double[COEFFICIENTS][size];
+    }
+
+    /**
+     * Copy of the given near-Earth satellites packed into lanes 0..to-from, lane i holding satellite indices[from + i].
+     * Batch evaluation of a block then reads every column contiguously.
+     */
+    NativeSgp4 block(int[] indices, int from, int to) {
+        NativeSgp4 block = new NativeSgp4(to - from);
+        for (int lane = 0; lane < to - from; lane++) {
+            int index = indices[from + lane];
+            block.epochs[lane] = epochs[index];
+            block.nearEarth[lane] = nearEarth[index];
+            for (int k = 0; k < COEFFICIENTS; k++) {
+                block.columns[k][lane] = columns[k][index];
+            }
+        }
+        return block;
+    }
+
+    double[] column(int coefficient) {
+        return columns[coefficient];
+    }
+
+    /**
+     * Index of the satellite in this kernel, or -1 if it is not part of it.
+     */
+    int indexOf(int noradId) {
+        Integer index = indexByNoradId.get(noradId);
+        return index == null ? -1 : index;
+    }
+
+    boolean supports(int index) {
+        return index >= 0 && nearEarth[index];
+    }
+
+    int size() {
+        return epochs.length;
+    }
+
+    /**
+     * Minutes from the satellite's TLE epoch to the given date, the time argument of {@link #propagate}.
+     */
+    double minutesSinceEpoch(int index, AbsoluteDate date) {
+        return date.durationFrom(epochs[index]) / 60.0;
+    }
+
+    /**
+     * Propagate every lane of a block to its own time, writing TEME positions in km to x, y and z. Lanes whose
+     * elements are no longer valid are written as NaN.
+     */
+    void propagatePositions(double[] minutesSinceEpoch, double[] x, double[] y, double[] z) {
+        propagatePositions(0, size(), minutesSinceEpoch, x, y, z);
+    }
+
+    void propagatePositions(int from, int to, double[] minutesSinceEpoch, double[] x, double[] y, double[] z) {
+        double[] position = new double[3];
+        for (int lane = from; lane < to; lane++) {
+            if (propagate(lane, minutesSinceEpoch[lane], position, 0, false)) {
+                x[lane] = position[0];
+                y[lane] = position[1];
+                z[lane] = position[2];
+            } else {
+                x[lane] = Double.NaN;
+                y[lane] = Double.NaN;
+                z[lane] = Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Propagate a near-Earth satellite and write its TEME position in km to out[at..at+2], and its velocity in km/s
+     * to out[at+3..at+5] if withVelocity. Returns false, leaving out untouched, if the elements are no longer valid
+     * (eccentricity driven out of range by drag).
+     */
+    boolean propagate(int index, double minutesSinceEpoch, double[] out, int at, boolean withVelocity) {
+        final double[][] c = columns;
+        final int i = index;
+        final double t = minutesSinceEpoch;
+
+        // Secular gravity and atmospheric drag
+        final double xmdf = c[M0][i] + c[XMDOT][i] * t;
+        final double omgadf = c[ARGP0][i] + c[OMGDOT][i] * t;
+        final double xnoddf = c[RAAN0][i] + c[XNODOT][i] * t;
+        final double tsq = t * t;
+        final double xnode = xnoddf + c[XNODCF][i] * tsq;
+        final double tcube = tsq * t;
+        final double tfour = t * tcube;
+
+        // The higher order drag terms have zero coefficients for satellites with truncated equations, see Sgp4Coefficients
+        final double delomg = c[OMGCOF][i] * t;
+        double delm = 1.0 + c[ETA][i] * Math.cos(xmdf);
+        delm = c[XMCOF][i] * (delm * delm * delm - c[DELM0][i]);
+        final double xmp = xmdf + (delomg + delm);
+        final double omega = omgadf - (delomg + delm);
+        final double tempa = 1.0 - c[C1][i] * t - c[D2][i] * tsq - c[D3][i] * tcube - c[D4][i] * tfour;
+        final double tempe = c[BSTAR][i] * c[C4][i] * t + c[BSTAR][i] * c[C5][i] * (Math.sin(xmp) - c[SINM0][i]);
+        final double templ = c[T2COF][i] * tsq + c[T3COF][i] * tcube + tfour * (c[T4COF][i] + t * c[T5COF][i]);
+
+        final double a = c[A0DP][i] * tempa * tempa;
+        double e = c[E0][i] - tempe;
+        if (e < 1e-6) {
+            e = 1e-6;
+        }
+        if (!(e <= 1 - 1e-6)) {
+            return false;
+        }
+        final double xl = xmp + omega + xnode + c[XN0DP][i] * templ;
+
+        // Long period periodics
+        final double axn = e * Math.cos(omega);
+        double temp = 1.0 / (a * (1.0 - e * e));
+        final double xll = temp * c[XLCOF][i] * axn;
+        final double aynl = temp * c[AYCOF][i];
+        final double xlt = xl + xll;
+        final double ayn = e * Math.sin(omega) + aynl;
+        final double elsq = axn * axn + ayn * ayn;
+        final double capu = normalizeAngle(xlt - xnode);
+
+        // Kepler's equation, first step clamped as in Orekit
+        double epw = capu;
+        double sinEpw = 0;
+        double cosEpw = 0;
+        double ecosE = 0;
+        double esinE = 0;
+        for (int j = 0; j < KEPLER_MAX_ITERATIONS; j++) {
+            sinEpw = Math.sin(epw);
+            cosEpw = Math.cos(epw);
+            ecosE = axn * cosEpw + ayn * sinEpw;
+            esinE = axn * sinEpw - ayn * cosEpw;
+            final double f = capu - epw + esinE;
+            if (Math.abs(f) < KEPLER_EPSILON) {
+                break;
+            }
+            final double fdot = 1.0 - ecosE;
+            double deltaEpw = f / fdot;
+            boolean secondOrder = true;
+            if (j == 0) {
+                final double maxStep = 1.25 * Math.abs(e);
+                secondOrder = false;
+                if (deltaEpw > maxStep) {
+                    deltaEpw = maxStep;
+                } else if (deltaEpw < -maxStep) {
+                    deltaEpw = -maxStep;
+                } else {
+                    secondOrder = true;
+                }
+            }
+            if (secondOrder) {
+                deltaEpw = f / (fdot + 0.5 * esinE * deltaEpw);
+            }
+            epw += deltaEpw;
+        }
+
+        // Short period preliminary quantities
+        final double cosi0 = c[COSI0][i];
+        final double sini0 = c[SINI0][i];
+        final double cosi0Sq = cosi0 * cosi0;
+        final double x3thm1 = 3.0 * cosi0Sq - 1.0;
+        final double x1mth2 = 1.0 - cosi0Sq;
+        final double x7thm1 = 7.0 * cosi0Sq - 1.0;
+
+        temp = 1.0 - elsq;
+        final double pl = a * temp;
+        final double r = a * (1.0 - ecosE);
+        double temp2 = a / r;
+        final double betal = Math.sqrt(temp);
+        temp = esinE / (1.0 + betal);
+        final double cosu = temp2 * (cosEpw - axn + ayn * temp);
+        final double sinu = temp2 * (sinEpw - ayn - axn * temp);
+        final double u = Math.atan2(sinu, cosu);
+        final double sin2u = 2.0 * sinu * cosu;
+        final double cos2u = 2.0 * cosu * cosu - 1.0;
+        final double temp1 = CK2 / pl;
+        temp2 = temp1 / pl;
+
+        // Short periodics
+        final double rk = r * (1.0 - 1.5 * temp2 * betal * x3thm1) + 0.5 * temp1 * x1mth2 * cos2u;
+        final double uk = u - 0.25 * temp2 * x7thm1 * sin2u;
+        final double xnodek = xnode + 1.5 * temp2 * cosi0 * sin2u;
+        final double xinck = c[I0][i] + 1.5 * temp2 * cosi0 * sini0 * cos2u;
+
+        // Orientation vectors
+        final double sinuk = Math.sin(uk);
+        final double cosuk = Math.cos(uk);
+        final double sinik = Math.sin(xinck);
+        final double cosik = Math.cos(xinck);
+        final double sinnok = Math.sin(xnodek);
+        final double cosnok = Math.cos(xnodek);
+        final double xmx = -sinnok * cosik;
+        final double xmy = cosnok * cosik;
+        final double ux = xmx * sinuk + cosnok * cosuk;
+        final double uy = xmy * sinuk + sinnok * cosuk;
+        final double uz = sinik * sinuk;
+
+        final double radiusKm = rk * EARTH_RADIUS_KM;
+        out[at] = radiusKm * ux;
+        out[at + 1] = radiusKm * uy;
+        out[at + 2] = radiusKm * uz;
+
+        if (withVelocity) {
+            final double sqrtA = Math.sqrt(a);
+            final double rdot = XKE * sqrtA * esinE / r;
+            final double rfdot = XKE * Math.sqrt(pl) / r;
+            final double xn = XKE / (a * sqrtA);
+            final double rdotk = rdot - xn * temp1 * x1mth2 * sin2u;
+            final double rfdotk = rfdot + xn * temp1 * (x1mth2 * cos2u + 1.5 * x3thm1);
+            final double vx = xmx * cosuk - cosnok * sinuk;
+            final double vy = xmy * cosuk - sinnok * sinuk;
+            final double vz = sinik * cosuk;
+
+            final double kmPerSecond = EARTH_RADIUS_KM / 60.0;
+            out[at + 3] = kmPerSecond * (rdotk * ux + rfdotk * vx);
+            out[at + 4] = kmPerSecond * (rdotk * uy + rfdotk * vy);
+            out[at + 5] = kmPerSecond * (rdotk * uz + rfdotk * vz);
+        }
+        return true;
+    }
+
+    /**
+     * Fill column entry i with the SGP4 initialization of the TLE. Returns false for deep-space satellites, whose
+     * entries are left unused.
+     */
+    private static boolean initialize(TLE tle, double[][] c, int i) {
+        final double e0 = tle.getE();
+        final double i0 = tle.getI();
+        final double bStar = tle.getBStar();
+        final Sgp4Coefficients sgp4 = Sgp4Coefficients.nearEarth(e0, i0, tle.getMeanMotion() * 60.0,
+                tle.getPerigeeArgument(), tle.getMeanAnomaly(), bStar);
+        if (sgp4 == null) {
+            return false;
+        }
+
+        final double cosi0 = Math.cos(i0);
+        final double sini0 = Math.sin(i0);
+        c[E0][i] = e0;
+        c[I0][i] = i0;
+        c[M0][i] = tle.getMeanAnomaly();
+        c[ARGP0][i] = tle.getPerigeeArgument();
+        c[RAAN0][i] = tle.getRaan();
+        c[BSTAR][i] = bStar;
+        c[COSI0][i] = cosi0;
+        c[SINI0][i] = sini0;
+        c[A0DP][i] = sgp4.a0dp();
+        c[XN0DP][i] = sgp4.xn0dp();
+        c[ETA][i] = sgp4.eta();
+        c[XMDOT][i] = sgp4.xmdot();
+        c[OMGDOT][i] = sgp4.omgdot();
+        c[XNODOT][i] = sgp4.xnodot();
+        c[XNODCF][i] = sgp4.xnodcf();
+        c[C1][i] = sgp4.c1();
+        c[C4][i] = sgp4.c4();
+        c[C5][i] = sgp4.c5();
+        c[T2COF][i] = sgp4.t2cof();
+        c[T3COF][i] = sgp4.t3cof();
+        c[T4COF][i] = sgp4.t4cof();
+        c[T5COF][i] = sgp4.t5cof();
+        c[D2][i] = sgp4.d2();
+        c[D3][i] = sgp4.d3();
+        c[D4][i] = sgp4.d4();
+        c[OMGCOF][i] = sgp4.omgcof();
+        c[XMCOF][i] = sgp4.xmcof();
+        c[DELM0][i] = sgp4.delM0();
+        c[SINM0][i] = Math.sin(tle.getMeanAnomaly());
+
+        // Long period coefficients, guarded against the singularity at 180 degrees inclination
+        double onePlusCosi0 = 1.0 + cosi0;
+        if (Math.abs(onePlusCosi0) < 1.5e-12) {
+            onePlusCosi0 = 1.5e-12;
+        }
+        c[XLCOF][i] = 0.125 * A3OVK2 * sini0 * (3.0 + 5.0 * cosi0) / onePlusCosi0;
+        c[AYCOF][i] = 0.25 * A3OVK2 * sini0;
+        return true;
+    }
+
+    // Angle in [0, 2pi), as MathUtils.normalizeAngle(angle, PI)
+    private static double normalizeAngle(double angle) {
+        return angle - TWO_PI * Math.floor(angle / TWO_PI);
+    }
+}
@@ -0,0 +1,143 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Map;
+
+/**
+ * Pre-computed satellite positions for every coarse step, backed by one contiguous primitive buffer.
+ * The layout decides which samples and components are neighbours in memory, subclasses decide where the buffer lives.
+ * Samples that could not be propagated are stored as NaN and reported as invalid.
+ */
+abstract class PositionCache implements PositionSource {
+
+    enum Layout {
+        /**
+         * All steps of one satellite are contiguous, with x, y, z interleaved. Best for scalar pair sweeps.
+         */
+        SATELLITE_MAJOR,
+        /**
+         * All steps of one satellite are contiguous, stored as separate x, y and z planes. Required by the vector kernel.
+         */
+        SATELLITE_PLANAR,
+        /**
+         * All satellites of one step are contiguous, with x, y, z interleaved. Best for screening every satellite at a
+         * single step.
+         */
+        STEP_MAJOR
+    }
+
+    enum Precision {
+        DOUBLE,
+        /**
+         * Single-precision components. Only supported by the HEAP store.
+         */
+        FLOAT
+    }
+
+    private final Map<Integer, Integer> noradIdToArrayId;
+    private final int totalSteps;
+    protected final long satelliteStride;
+    protected final long stepStride;
+    protected final long axisStride;
+
+    protected PositionCache(Map<Integer, Integer> noradIdToArrayId, int totalSteps, Layout layout) {
+        long satelliteCount = noradIdToArrayId.size();
+        this.noradIdToArrayId = noradIdToArrayId;
+        this.totalSteps = totalSteps;
+        switch (layout) {
+            case SATELLITE_MAJOR -> {
+                this.satelliteStride = 3L * totalSteps;
+                this.stepStride = 3;
+                this.axisStride = 1;
+            }
+            case SATELLITE_PLANAR -> {
+                this.satelliteStride = 3L * totalSteps;
+                this.stepStride = 1;
+                this.axisStride = totalSteps;
+            }
+            default -> {
+                this.satelliteStride = 3;
+                this.stepStride = 3 * satelliteCount;
+                this.axisStride = 1;
+            }
+        }
+    }
+
+    /**
+     * Total number of doubles needed to hold every component of every sample.
+     */
+    static long length(int satelliteCount, int totalSteps) {
+        return 3L * satelliteCount * totalSteps;
+    }
+
+    @Override
+    public Map<Integer, Integer> noradIdToArrayId() {
+        return noradIdToArrayId;
+    }
+
+    @Override
+    public int totalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * Whether consecutive steps of one axis are adjacent in the buffer, as the vector kernel requires.
+     */
+    boolean isStepContiguous() {
+        return stepStride == 1;
+    }
+
+    /**
+     * Index of the x component of a sample in the buffer.
+     */
+    long offset(int sat, int step) {
+        return sat * satelliteStride + step * stepStride;
+    }
+
+    protected abstract double read(long index);
+
+    protected abstract void write(long index, double value);
+
+    void store(int sat, int step, double x, double y, double z) {
+        long offset = offset(sat, step);
+        write(offset, x);
+        write(offset + axisStride, y);
+        write(offset + 2 * axisStride, z);
+    }
+
+    @Override
+    public double x(int sat, int step) {
+        return read(offset(sat, step));
+    }
+
+    @Override
+    public double y(int sat, int step) {
+        return read(offset(sat, step) + axisStride);
+    }
+
+    @Override
+    public double z(int sat, int step) {
+        return read(offset(sat, step) + 2 * axisStride);
+    }
+
+    @Override
+    public boolean isValid(int sat, int step) {
+        return !Double.isNaN(x(sat, step));
+    }
+
+    @Override
+    public double distanceSquaredAt(int a, int b, int step, double tolSq) {
+        long offsetA = offset(a, step);
+        long offsetB = offset(b, step);
+
+        double dx = read(offsetA) - read(offsetB);
+        double dxSq = dx * dx;
+        if (dxSq > tolSq) return dxSq;
+
+        double dy = read(offsetA + axisStride) - read(offsetB + axisStride);
+        double dySq = dxSq + dy * dy;
+        if (dySq > tolSq) return dySq;
+
+        double dz = read(offsetA + 2 * axisStride) - read(offsetB + 2 * axisStride);
+        return dySq + dz * dz;
+    }
+}
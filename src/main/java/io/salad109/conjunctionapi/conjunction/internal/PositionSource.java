@@ -0,0 +1,60 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Map;
+
+/**
+ * Satellite positions in km at every coarse step of a scan, by array id and step. {@link PositionCache} stores them
+ * per step, {@link ChebyshevPositions} evaluates them from fitted series. Samples that could not be propagated are
+ * reported as invalid.
+ */
+interface PositionSource extends AutoCloseable {
+
+    enum Store {
+        /**
+         * Plain double array on the Java heap.
+         */
+        HEAP,
+        /**
+         * Memory-mapped temporary file outside the Java heap, paged by the operating system.
+         */
+        MAPPED,
+        /**
+         * Piecewise Chebyshev polynomials per satellite, evaluated on every read instead of stored per step.
+         */
+        CHEBYSHEV
+    }
+
+    Map<Integer, Integer> noradIdToArrayId();
+
+    int totalSteps();
+
+    double x(int sat, int step);
+
+    double y(int sat, int step);
+
+    double z(int sat, int step);
+
+    boolean isValid(int sat, int step);
+
+    default boolean validAt(int a, int b, int step) {
+        return isValid(a, step) && isValid(b, step);
+    }
+
+    /**
+     * Squared distance between two satellites at a step. Once the partial sum exceeds tolSq it may be returned as is.
+     */
+    double distanceSquaredAt(int a, int b, int step, double tolSq);
+
+    /**
+     * Largest distance in km between a position and the one the double-precision SGP4 path would give, which the
+     * coarse tolerance is padded by. Zero unless the source trades precision for size. An upper bound for the per-step
+     * caches, an estimate with a safety margin for {@link ChebyshevPositions}, whose fit error is not bounded.
+     */
+    default double positionErrorBoundKm() {
+        return 0;
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -2,6 +2,7 @@ package io.salad109.conjunctionapi.conjunction.internal;
 
 import io.salad109.conjunctionapi.satellite.Satellite;
 import io.salad109.conjunctionapi.satellite.SatellitePair;
+import jakarta.annotation.PostConstruct;
 import org.orekit.propagation.analytical.tle.TLE;
 import org.orekit.propagation.analytical.tle.TLEPropagator;
 import org.orekit.time.AbsoluteDate;
@@ -9,12 +10,16 @@ import org.orekit.time.TimeScalesFactory;
 import org.orekit.utils.PVCoordinates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.IntStream;
 
 @Service
@@ -22,33 +27,105 @@ public class PropagationService {
 
     private static final Logger log = LoggerFactory.getLogger(PropagationService.class);
 
-    public Map<Integer, TLEPropagator> buildPropagators(List<Satellite> satellites) {
+    // Satellites evaluated together by the native backend, small enough for the block's columns to stay in cache
+    private static final int NATIVE_BLOCK_SIZE = 256;
+
+    @Value("${conjunction.position-layout:SATELLITE_MAJOR}")
+    private PositionCache.Layout positionLayout;
+
+    @Value("${conjunction.ephemeris-store:HEAP}")
+    private PositionSource.Store ephemerisStore;
+
+    @Value("${conjunction.ephemeris-directory:${java.io.tmpdir}}")
+    private String ephemerisDirectory;
+
+    @Value("${conjunction.ephemeris-precision:DOUBLE}")
+    private PositionCache.Precision ephemerisPrecision;
+
+    @Value("${conjunction.ephemeris-float-validation:false}")
+    private boolean floatValidation;
+
+    @Value("${conjunction.propagator-backend:OREKIT}")
+    private Backend propagatorBackend;
+
+    @Value("${conjunction.vector-sgp4-enabled:false}")
+    private boolean vectorSgp4Enabled;
+
+    @Value("${conjunction.interpolation:LINEAR}")
+    private Interpolation interpolation;
+
+    @Value("${conjunction.chebyshev-segment-minutes:120}")
+    private double chebyshevSegmentMinutes;
+
+    @Value("${conjunction.chebyshev-degree:15}")
+    private int chebyshevDegree;
+
+    // Parsed TLEs and per-thread propagators kept across scans, keyed by NORAD ID
+    private final Map<Integer, CachedTle> tleCache = new HashMap<>();
+    private final ThreadLocal<PropagatorPool.ThreadPropagators> threadPropagators =
+            ThreadLocal.withInitial(PropagatorPool.ThreadPropagators::new);
+    private long cacheGeneration;
+
+    @PostConstruct
+    void checkVectorSgp4() {
+        if (vectorSgp4Enabled && !VectorApi.isAvailable()) {
+            log.warn("Vector SGP4 enabled but jdk.incubator.vector is not loaded, using scalar SGP4");
+        }
+    }
+
+    /**
+     * Propagators for the given satellites. TLEs are only parsed again, and propagators only rebuilt, for satellites
+     * whose epoch or entity version changed since the previous call. Satellites missing from the list are evicted.
+     */
+    public synchronized PropagatorPool buildPropagators(List<Satellite> satellites) {
         long startMs = System.currentTimeMillis();
-        Map<Integer, TLEPropagator> propagators = new HashMap<>();
+        Map<Integer, TLE> tles = HashMap.newHashMap(satellites.size());
+        int parsed = 0;
 
         for (Satellite sat : satellites) {
-            TLE tle = new TLE(sat.getTleLine1(), sat.getTleLine2());
-            propagators.put(sat.getNoradCatId(), TLEPropagator.selectExtrapolator(tle));
+            CachedTle cached = tleCache.get(sat.getNoradCatId());
+            if (cached == null || !cached.matches(sat)) {
+                cached = new CachedTle(sat.getEpoch(), sat.getVersion(), new TLE(sat.getTleLine1(), sat.getTleLine2()));
+                tleCache.put(sat.getNoradCatId(), cached);
+                parsed++;
+            }
+            tles.put(sat.getNoradCatId(), cached.tle());
+        }
+
+        int evicted = tleCache.size() - tles.size();
+        if (evicted > 0) {
+            tleCache.keySet().retainAll(tles.keySet());
         }
+        cacheGeneration++;
 
-        log.debug("Built {} propagators in {}ms", propagators.size(), System.currentTimeMillis() - startMs);
-        return propagators;
+        // Initialization is a few hundred flops per satellite, cheaper than tracking which blocks changed
+        NativeSgp4 nativeSgp4 = propagatorBackend == Backend.NATIVE ? new NativeSgp4(tles) : null;
+
+        log.debug("Prepared {} propagators in {}ms ({} parsed, {} reused, {} evicted, backend={})", tles.size(),
+                System.currentTimeMillis() - startMs, parsed, tles.size() - parsed, evicted,
+                propagatorBackend);
+        return new PropagatorPool(tles, threadPropagators, cacheGeneration, nativeSgp4);
     }
 
     /**
-     * Propagate both satellites to a given time and return the distance between them.
+     * Clock for a scan starting at the given time, the only calendar to AbsoluteDate conversion of the scan.
      */
-    public double propagateAndMeasureDistance(SatellitePair pair, Map<Integer, TLEPropagator> propagators, OffsetDateTime time) {
-        AbsoluteDate date = toAbsoluteDate(time);
+    public ScanClock startClock(OffsetDateTime startTime) {
+        return new ScanClock(startTime, toAbsoluteDate(startTime));
+    }
 
+    /**
+     * Propagate both satellites to a given date and return the distance between them.
+     */
+    public double propagateAndMeasureDistance(SatellitePair pair, PropagatorPool propagators, AbsoluteDate date) {
         try {
-            TLEPropagator propA = propagators.get(pair.a().getNoradCatId());
-            TLEPropagator propB = propagators.get(pair.b().getNoradCatId());
-
-            PVCoordinates pvA = propA.getPVCoordinates(date, propA.getFrame());
-            PVCoordinates pvB = propB.getPVCoordinates(date, propB.getFrame());
-
-            return calculateDistance(pvA, pvB);
+            // Position and velocity of both satellites
+            double[] state = new double[12];
+            if (!stateAt(pair.a().getNoradCatId(), propagators, date, state, 0, false)
+                    || !stateAt(pair.b().getNoradCatId(), propagators, date, state, 6, false)) {
+                return Double.MAX_VALUE;
+            }
+            return norm(state[0] - state[6], state[1] - state[7], state[2] - state[8]);
         } catch (Exception e) {
             log.warn("Failed to propagate for refinement: {}", e.getMessage());
             return Double.MAX_VALUE;
@@ -56,19 +133,18 @@ public class PropagationService {
     }
 
     /**
-     * Propagate both satellites to a given time and return the relative velocity.
+     * Propagate both satellites to a given date and return the relative velocity.
      */
-    public double propagateAndMeasureVelocity(SatellitePair pair, Map<Integer, TLEPropagator> propagators, OffsetDateTime time) {
-        AbsoluteDate date = toAbsoluteDate(time);
-
+    public double propagateAndMeasureVelocity(SatellitePair pair, PropagatorPool propagators, AbsoluteDate date) {
         try {
-            TLEPropagator propA = propagators.get(pair.a().getNoradCatId());
-            TLEPropagator propB = propagators.get(pair.b().getNoradCatId());
-
-            PVCoordinates pvA = propA.getPVCoordinates(date, propA.getFrame());
-            PVCoordinates pvB = propB.getPVCoordinates(date, propB.getFrame());
-
-            return calculateRelativeVelocity(pvA, pvB);
+            // Position and velocity of both satellites
+            double[] state = new double[12];
+            if (!stateAt(pair.a().getNoradCatId(), propagators, date, state, 0, true)
+                    || !stateAt(pair.b().getNoradCatId(), propagators, date, state, 6, true)) {
+                return 0.0;
+            }
+            // km/s to m/s
+            return 1000.0 * norm(state[3] - state[9], state[4] - state[10], state[5] - state[11]);
         } catch (Exception e) {
             log.warn("Failed to calculate velocity: {}", e.getMessage());
             return 0.0;
@@ -76,97 +152,388 @@ public class PropagationService {
     }
 
     /**
-     * Propagate a single satellite to a given time and return position in km as [x, y, z].
+     * Propagate a single satellite to a given date and return position in km and velocity in km/s as
+     * [x, y, z, vx, vy, vz].
      */
-    public double[] propagateToPositionKm(Satellite sat, Map<Integer, TLEPropagator> propagators, OffsetDateTime time) {
-        AbsoluteDate date = toAbsoluteDate(time);
+    public double[] propagateToStateKm(Satellite sat, PropagatorPool propagators, AbsoluteDate date) {
         try {
-            TLEPropagator prop = propagators.get(sat.getNoradCatId());
-            PVCoordinates pv = prop.getPVCoordinates(date, prop.getFrame());
-            return new double[]{
-                    pv.getPosition().getX() / 1000.0,
-                    pv.getPosition().getY() / 1000.0,
-                    pv.getPosition().getZ() / 1000.0
-            };
+            double[] state = new double[6];
+            if (!stateAt(sat.getNoradCatId(), propagators, date, state, 0, true)) {
+                return new double[6];
+            }
+            return state;
         } catch (Exception e) {
             log.warn("Failed to propagate satellite {}: {}", sat.getNoradCatId(), e.getMessage());
-            return new double[]{0, 0, 0};
+            return new double[6];
         }
     }
 
+    /**
+     * How positions between SGP4 evaluations are filled in, for the coarse cache and for refinement.
+     */
+    Interpolation interpolation() {
+        return interpolation;
+    }
+
+    /**
+     * Bytes one step of the position cache takes for the given number of satellites. An upper bound for the
+     * CHEBYSHEV store, which holds less.
+     */
+    long bytesPerStep(int satelliteCount) {
+        boolean floats = ephemerisPrecision == PositionCache.Precision.FLOAT && ephemerisStore == PositionSource.Store.HEAP;
+        return PositionCache.length(satelliteCount, 1) * (floats ? Float.BYTES : Double.BYTES);
+    }
+
     /**
      * Pre-compute positions for all satellites across all time steps.
      */
-    PositionCache precomputePositions(Map<Integer, TLEPropagator> propagators,
-                                      OffsetDateTime startTime, int stepSeconds, int totalSteps,
-                                      int interpolationStride) {
+    PositionSource precomputePositions(PropagatorPool propagators,
+                                       ScanClock clock, int stepSeconds, int totalSteps,
+                                       int interpolationStride) {
         int stride = Math.max(1, interpolationStride);
-        log.debug("Pre-computing positions: {} sats, {} steps, stride={}", propagators.size(), totalSteps, stride);
+        log.debug("Pre-computing positions: {} sats, {} steps, stride={}, layout={}, store={}",
+                propagators.size(), totalSteps, stride, positionLayout, ephemerisStore);
         long startMs = System.currentTimeMillis();
 
-        OffsetDateTime[] times = new OffsetDateTime[totalSteps];
+        // One date per step, shared by every satellite
+        AbsoluteDate[] dates = new AbsoluteDate[totalSteps];
         for (int i = 0; i < totalSteps; i++) {
-            times[i] = startTime.plusSeconds((long) i * stepSeconds);
+            dates[i] = clock.date((double) i * stepSeconds);
         }
 
-        Integer[] satIds = propagators.keySet().toArray(Integer[]::new);
+        Integer[] satIds = propagators.noradIds().toArray(Integer[]::new);
         Map<Integer, Integer> noradIdToArrayId = HashMap.newHashMap(satIds.length);
         for (int i = 0; i < satIds.length; i++) {
             noradIdToArrayId.put(satIds[i], i);
         }
 
-        int numSats = satIds.length;
-        double[][] x = new double[numSats][totalSteps];
-        double[][] y = new double[numSats][totalSteps];
-        double[][] z = new double[numSats][totalSteps];
-        boolean[][] valid = new boolean[numSats][totalSteps];
+        if (ephemerisStore == PositionSource.Store.CHEBYSHEV) {
+            ChebyshevEphemeris ephemeris = fitEphemeris(noradIdToArrayId, propagators, satIds, clock,
+                    stepSeconds, totalSteps);
+            log.debug("Chebyshev ephemeris fitted in {}ms: {} coefficients for {} positions",
+                    System.currentTimeMillis() - startMs, ephemeris.size(),
+                    PositionCache.length(satIds.length, totalSteps));
+            return new ChebyshevPositions(ephemeris, totalSteps, stepSeconds);
+        }
+
+        PositionCache cache = newPositionCache(noradIdToArrayId, totalSteps);
+        fillPositions(cache, propagators, satIds, dates, stride);
+
+        if (cache instanceof FloatPositionCache && floatValidation) {
+            validateFloatPositions(cache, propagators, satIds, dates, stride);
+        }
+
+        log.debug("Position pre-computation completed in {}ms", System.currentTimeMillis() - startMs);
+        return cache;
+    }
+
+    private PositionCache newPositionCache(Map<Integer, Integer> noradIdToArrayId, int totalSteps) {
+        if (ephemerisPrecision == PositionCache.Precision.FLOAT) {
+            if (ephemerisStore == PositionSource.Store.HEAP) {
+                return new FloatPositionCache(noradIdToArrayId, totalSteps, positionLayout);
+            }
+            log.warn("FLOAT ephemeris precision is only supported by the HEAP store, using DOUBLE");
+        }
+        return switch (ephemerisStore) {
+            case HEAP -> new HeapPositionCache(noradIdToArrayId, totalSteps, positionLayout);
+            case MAPPED -> new MappedPositionCache(noradIdToArrayId, totalSteps, positionLayout, Path.of(ephemerisDirectory));
+            case CHEBYSHEV -> throw new IllegalStateException("Chebyshev ephemeris is fitted, not filled per step");
+        };
+    }
+
+    /**
+     * Fit every satellite's positions over the scan, one step before it to the last step, with Chebyshev series of
+     * the configured degree over segments of at most the configured length. The segment nodes take the place of
+     * stride points, SGP4 runs degree + 1 times per segment whatever the step.
+     */
+    private ChebyshevEphemeris fitEphemeris(Map<Integer, Integer> noradIdToArrayId, PropagatorPool propagators,
+                                            Integer[] satIds, ScanClock clock, int stepSeconds, int totalSteps) {
+        if (ephemerisPrecision == PositionCache.Precision.FLOAT) {
+            log.warn("FLOAT ephemeris precision does not apply to the CHEBYSHEV store, using DOUBLE");
+        }
+        ChebyshevEphemeris ephemeris = new ChebyshevEphemeris(noradIdToArrayId, -stepSeconds,
+                (double) totalSteps * stepSeconds, chebyshevSegmentMinutes * 60.0, chebyshevDegree);
+        int nodes = ephemeris.nodes();
+        AbsoluteDate[][] nodeDates = new AbsoluteDate[ephemeris.segments()][nodes];
+        for (int segment = 0; segment < nodeDates.length; segment++) {
+            for (int node = 0; node < nodes; node++) {
+                nodeDates[segment][node] = clock.date(ephemeris.nodeSeconds(segment, node));
+            }
+        }
+
+        IntStream.range(0, satIds.length).parallel().forEach(s -> {
+            double[] samples = new double[3 * nodes];
+            for (int segment = 0; segment < nodeDates.length; segment++) {
+                for (int node = 0; node < nodes; node++) {
+                    boolean valid;
+                    try {
+                        valid = stateAt(satIds[s], propagators, nodeDates[segment][node], samples, 3 * node, false);
+                    } catch (Exception e) {
+                        valid = false;
+                    }
+                    if (!valid) {
+                        // Propagates into the coefficients and leaves the segment invalid
+                        Arrays.fill(samples, 3 * node, 3 * node + 3, Double.NaN);
+                    }
+                }
+                ephemeris.fit(s, segment, samples);
+            }
+        });
+        return ephemeris;
+    }
 
-        IntStream.range(0, numSats).parallel().forEach(s -> {
-            TLEPropagator prop = propagators.get(satIds[s]);
+    private void fillPositions(PositionCache cache, PropagatorPool propagators, Integer[] satIds,
+                               AbsoluteDate[] dates, int stride) {
+        int totalSteps = dates.length;
+        boolean hermite = interpolation == Interpolation.HERMITE;
+        NativeSgp4 nativeSgp4 = propagators.nativeSgp4();
+        boolean[] filled = nativeSgp4 != null
+                ? fillNativeBlocks(cache, nativeSgp4, satIds, dates, stride)
+                : new boolean[satIds.length];
 
-            // SGP4 at stride points
+        IntStream.range(0, satIds.length).parallel().forEach(s -> {
+            // SGP4 at stride points, unless the native backend already did
+            if (filled[s]) return;
+            TLEPropagator prop = propagators.propagator(satIds[s]);
+            double[] velocities = hermite ? new double[3 * strideCount(totalSteps, stride)] : null;
             for (int step = 0; step < totalSteps; step += stride) {
                 try {
-                    PVCoordinates pv = prop.getPVCoordinates(toAbsoluteDate(times[step]), prop.getFrame());
-                    x[s][step] = pv.getPosition().getX() / 1000.0;
-                    y[s][step] = pv.getPosition().getY() / 1000.0;
-                    z[s][step] = pv.getPosition().getZ() / 1000.0;
-                    valid[s][step] = true;
+                    PVCoordinates pv = prop.getPVCoordinates(dates[step], prop.getFrame());
+                    cache.store(s, step,
+                            pv.getPosition().getX() / 1000.0,
+                            pv.getPosition().getY() / 1000.0,
+                            pv.getPosition().getZ() / 1000.0);
+                    if (velocities != null) {
+                        int at = 3 * (step / stride);
+                        velocities[at] = pv.getVelocity().getX() / 1000.0;
+                        velocities[at + 1] = pv.getVelocity().getY() / 1000.0;
+                        velocities[at + 2] = pv.getVelocity().getZ() / 1000.0;
+                    }
                 } catch (Exception e) {
-                    valid[s][step] = false;
+                    // Left invalid
                 }
             }
+            interpolate(cache, s, dates, stride, velocities);
+        });
+    }
 
-            // Linear interpolation between strides
-            for (int a = 0; a + stride < totalSteps; a += stride) {
-                int b = a + stride;
-                if (!valid[s][a] || !valid[s][b]) continue;
+    private static int strideCount(int totalSteps, int stride) {
+        return (totalSteps - 1) / stride + 1;
+    }
+
+    /**
+     * Fill the steps between the stride points of a satellite, linearly or, given its velocities in km/s at the
+     * stride points, with cubic Hermite polynomials.
+     */
+    private static void interpolate(PositionCache cache, int s, AbsoluteDate[] dates, int stride,
+                                    double[] velocities) {
+        int totalSteps = dates.length;
+        for (int a = 0; a + stride < totalSteps; a += stride) {
+            int b = a + stride;
+            if (!cache.isValid(s, a) || !cache.isValid(s, b)) continue;
+            double ax = cache.x(s, a);
+            double ay = cache.y(s, a);
+            double az = cache.z(s, a);
+            double bx = cache.x(s, b);
+            double by = cache.y(s, b);
+            double bz = cache.z(s, b);
+            if (velocities == null) {
                 for (int step = a + 1; step < b; step++) {
                     double t = (double) (step - a) / stride;
-                    x[s][step] = x[s][a] + t * (x[s][b] - x[s][a]);
-                    y[s][step] = y[s][a] + t * (y[s][b] - y[s][a]);
-                    z[s][step] = z[s][a] + t * (z[s][b] - z[s][a]);
-                    valid[s][step] = true;
+                    cache.store(s, step,
+                            ax + t * (bx - ax),
+                            ay + t * (by - ay),
+                            az + t * (bz - az));
+                }
+            } else {
+                double h = dates[b].durationFrom(dates[a]);
+                int va = 3 * (a / stride);
+                int vb = va + 3;
+                for (int step = a + 1; step < b; step++) {
+                    double t = (double) (step - a) / stride;
+                    cache.store(s, step,
+                            CubicHermite.interpolate(ax, velocities[va], bx, velocities[vb], h, t),
+                            CubicHermite.interpolate(ay, velocities[va + 1], by, velocities[vb + 1], h, t),
+                            CubicHermite.interpolate(az, velocities[va + 2], bz, velocities[vb + 2], h, t));
+                }
+            }
+        }
+    }
+
+    /**
+     * Propagate the satellites the native kernel supports at the stride points, in blocks of satellites evaluated
+     * together one step at a time, and interpolate them. Hermite interpolation needs velocities, which only the scalar
+     * kernel computes. Returns which array ids were filled, the others are left to Orekit.
+     */
+    private boolean[] fillNativeBlocks(PositionCache cache, NativeSgp4 nativeSgp4, Integer[] satIds,
+                                       AbsoluteDate[] dates, int stride) {
+        boolean[] filled = new boolean[satIds.length];
+        int[] arrayIds = new int[satIds.length];
+        int[] kernelIndices = new int[satIds.length];
+        int count = 0;
+        for (int s = 0; s < satIds.length; s++) {
+            int index = nativeSgp4.indexOf(satIds[s]);
+            if (nativeSgp4.supports(index)) {
+                filled[s] = true;
+                arrayIds[count] = s;
+                kernelIndices[count] = index;
+                count++;
+            }
+        }
+
+        // Step times relative to the first date, each lane adds the offset of its own TLE epoch
+        double[] stepMinutes = new double[dates.length];
+        for (int step = 0; step < dates.length; step += stride) {
+            stepMinutes[step] = dates[step].durationFrom(dates[0]) / 60.0;
+        }
+
+        boolean hermite = interpolation == Interpolation.HERMITE;
+        boolean vectorized = !hermite && useVectorSgp4();
+        int satellites = count;
+        int blocks = (satellites + NATIVE_BLOCK_SIZE - 1) / NATIVE_BLOCK_SIZE;
+        IntStream.range(0, blocks).parallel().forEach(blockId -> {
+            int from = blockId * NATIVE_BLOCK_SIZE;
+            int to = Math.min(from + NATIVE_BLOCK_SIZE, satellites);
+            NativeSgp4 block = nativeSgp4.block(kernelIndices, from, to);
+            int lanes = to - from;
+
+            double[] epochMinutes = new double[lanes];
+            for (int lane = 0; lane < lanes; lane++) {
+                epochMinutes[lane] = block.minutesSinceEpoch(lane, dates[0]);
+            }
+            double[] minutes = new double[lanes];
+            double[] x = new double[lanes];
+            double[] y = new double[lanes];
+            double[] z = new double[lanes];
+            double[][] velocities = hermite ? new double[lanes][3 * strideCount(dates.length, stride)] : null;
+            double[] state = new double[6];
+
+            for (int step = 0; step < dates.length; step += stride) {
+                for (int lane = 0; lane < lanes; lane++) {
+                    minutes[lane] = epochMinutes[lane] + stepMinutes[step];
+                }
+                if (hermite) {
+                    int at = 3 * (step / stride);
+                    for (int lane = 0; lane < lanes; lane++) {
+                        if (!block.propagate(lane, minutes[lane], state, 0, true)) {
+                            state[0] = Double.NaN;
+                        }
+                        x[lane] = state[0];
+                        y[lane] = state[1];
+                        z[lane] = state[2];
+                        System.arraycopy(state, 3, velocities[lane], at, 3);
+                    }
+                } else if (vectorized) {
+                    VectorSgp4.propagatePositions(block, minutes, x, y, z);
+                } else {
+                    block.propagatePositions(minutes, x, y, z);
+                }
+                // Invalid lanes are NaN, which the cache reads as invalid
+                for (int lane = 0; lane < lanes; lane++) {
+                    cache.store(arrayIds[from + lane], step, x[lane], y[lane], z[lane]);
                 }
             }
+
+            for (int lane = 0; lane < lanes; lane++) {
+                interpolate(cache, arrayIds[from + lane], dates, stride, hermite ? velocities[lane] : null);
+            }
         });
 
-        log.debug("Position pre-computation completed in {}ms", System.currentTimeMillis() - startMs);
-        return new PositionCache(noradIdToArrayId, times, x, y, z, valid);
+        log.debug("Native SGP4 filled {} of {} satellites ({} blocks, vectorized={})",
+                satellites, satIds.length, blocks, vectorized);
+        return filled;
     }
 
-    public double calculateDistance(PVCoordinates pvA, PVCoordinates pvB) {
-        double dx = (pvA.getPosition().getX() - pvB.getPosition().getX()) / 1000.0;
-        double dy = (pvA.getPosition().getY() - pvB.getPosition().getY()) / 1000.0;
-        double dz = (pvA.getPosition().getZ() - pvB.getPosition().getZ()) / 1000.0;
-        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    /**
+     * Vector SGP4 is opt-in and needs the incubator module.
+     */
+    /**
+     * Whether to evaluate native blocks with the Vector API. A missing module was reported once at startup.
+     */
+    private boolean useVectorSgp4() {
+        return vectorSgp4Enabled && VectorApi.isAvailable();
     }
 
-    public double calculateRelativeVelocity(PVCoordinates pvA, PVCoordinates pvB) {
-        double dvx = pvA.getVelocity().getX() - pvB.getVelocity().getX();
-        double dvy = pvA.getVelocity().getY() - pvB.getVelocity().getY();
-        double dvz = pvA.getVelocity().getZ() - pvB.getVelocity().getZ();
-        return Math.sqrt(dvx * dvx + dvy * dvy + dvz * dvz);
+    /**
+     * Rebuild the cache in double precision and report the largest position error of the float cache against it.
+     */
+    private void validateFloatPositions(PositionCache floatCache, PropagatorPool propagators,
+                                        Integer[] satIds, AbsoluteDate[] dates, int stride) {
+        long startMs = System.currentTimeMillis();
+        PositionCache doubleCache = new HeapPositionCache(floatCache.noradIdToArrayId(), dates.length, positionLayout);
+        fillPositions(doubleCache, propagators, satIds, dates, stride);
+
+        double maxErrorKm = IntStream.range(0, satIds.length).parallel()
+                .mapToDouble(s -> {
+                    double satMax = 0;
+                    for (int step = 0; step < dates.length; step++) {
+                        if (!doubleCache.isValid(s, step)) continue;
+                        double dx = floatCache.x(s, step) - doubleCache.x(s, step);
+                        double dy = floatCache.y(s, step) - doubleCache.y(s, step);
+                        double dz = floatCache.z(s, step) - doubleCache.z(s, step);
+                        satMax = Math.max(satMax, Math.sqrt(dx * dx + dy * dy + dz * dz));
+                    }
+                    return satMax;
+                })
+                .max()
+                .orElse(0);
+
+        log.info("Float ephemeris validation: max position error {} km, bound {} km ({}ms)",
+                maxErrorKm, floatCache.positionErrorBoundKm(), System.currentTimeMillis() - startMs);
+    }
+
+    /**
+     * Write the satellite's position in km to out[at..at+2] and, if withVelocity, its velocity in km/s to
+     * out[at+3..at+5]. Uses the native kernel when the pool has one supporting the satellite, Orekit otherwise.
+     * Returns false if the native kernel rejected the elements, Orekit failures are thrown.
+     */
+    private boolean stateAt(int noradId, PropagatorPool propagators, AbsoluteDate date,
+                            double[] out, int at, boolean withVelocity) {
+        NativeSgp4 nativeSgp4 = propagators.nativeSgp4();
+        int nativeIndex = nativeSgp4 == null ? -1 : nativeSgp4.indexOf(noradId);
+        if (nativeSgp4 != null && nativeSgp4.supports(nativeIndex)) {
+            return nativeSgp4.propagate(nativeIndex, nativeSgp4.minutesSinceEpoch(nativeIndex, date), out, at, withVelocity);
+        }
+
+        TLEPropagator prop = propagators.propagator(noradId);
+        PVCoordinates pv = prop.getPVCoordinates(date, prop.getFrame());
+        out[at] = pv.getPosition().getX() / 1000.0;
+        out[at + 1] = pv.getPosition().getY() / 1000.0;
+        out[at + 2] = pv.getPosition().getZ() / 1000.0;
+        if (withVelocity) {
+            out[at + 3] = pv.getVelocity().getX() / 1000.0;
+            out[at + 4] = pv.getVelocity().getY() / 1000.0;
+            out[at + 5] = pv.getVelocity().getZ() / 1000.0;
+        }
+        return true;
+    }
+
+    private static double norm(double x, double y, double z) {
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /**
+     * Source of SGP4 positions. NATIVE propagates near-Earth satellites with {@link NativeSgp4} and deep-space ones
+     * with Orekit, OREKIT uses Orekit for everything.
+     */
+    public enum Backend {
+        OREKIT,
+        NATIVE
+    }
+
+    /**
+     * LINEAR joins the SGP4 positions with straight lines. HERMITE also keeps the SGP4 velocities and joins them with
+     * cubic Hermite polynomials, which follow the orbit's curvature and stay accurate over much larger strides.
+     */
+    public enum Interpolation {
+        LINEAR,
+        HERMITE
+    }
+
+    private record CachedTle(OffsetDateTime epoch, Long version, TLE tle) {
+        boolean matches(Satellite sat) {
+            return Objects.equals(epoch, sat.getEpoch()) && Objects.equals(version, sat.getVersion());
+        }
     }
 
     private AbsoluteDate toAbsoluteDate(OffsetDateTime dateTime) {
@@ -180,25 +547,4 @@ public class PropagationService {
                 TimeScalesFactory.getUTC()
         );
     }
-
-    record PositionCache(Map<Integer, Integer> noradIdToArrayId, OffsetDateTime[] times,
-                         double[][] x, double[][] y, double[][] z,
-                         boolean[][] valid) {
-        public double distanceSquaredAt(int a, int b, int step, double tolSq) {
-            double dx = x[a][step] - x[b][step];
-            double dxSq = dx * dx;
-            if (dxSq > tolSq) return dxSq;
-
-            double dy = y[a][step] - y[b][step];
-            double dySq = dxSq + dy * dy;
-            if (dySq > tolSq) return dySq;
-
-            double dz = z[a][step] - z[b][step];
-            return dySq + dz * dz;
-        }
-
-        public boolean validAt(int a, int b, int step) {
-            return valid[a][step] && valid[b][step];
-        }
-    }
 }
@@ -0,0 +1,96 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.propagation.analytical.tle.TLEPropagator;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands every thread its own TLEPropagator per satellite. Orekit propagators keep mutable state between calls, so a
+ * propagator shared by parallel workers can return positions mixed from different dates. The parsed TLEs are
+ * immutable and shared, propagators are built lazily on first use by a thread and reused for later calls.
+ * <p>
+ * The per-thread propagators outlive a single pool, so the next scan reuses every propagator whose TLE did not change.
+ */
+public final class PropagatorPool {
+
+    private final Map<Integer, TLE> tles;
+    // Satellites to precompute, all of them unless the pool was restricted
+    private final Set<Integer> selected;
+    private final ThreadLocal<ThreadPropagators> threadPropagators;
+    private final long generation;
+    // Null when positions come from Orekit only
+    private final NativeSgp4 nativeSgp4;
+
+    PropagatorPool(Map<Integer, TLE> tles, ThreadLocal<ThreadPropagators> threadPropagators, long generation,
+                   NativeSgp4 nativeSgp4) {
+        this(tles, tles.keySet(), threadPropagators, generation, nativeSgp4);
+    }
+
+    private PropagatorPool(Map<Integer, TLE> tles, Set<Integer> selected,
+                           ThreadLocal<ThreadPropagators> threadPropagators, long generation, NativeSgp4 nativeSgp4) {
+        this.tles = tles;
+        this.selected = selected;
+        this.threadPropagators = threadPropagators;
+        this.generation = generation;
+        this.nativeSgp4 = nativeSgp4;
+    }
+
+    /**
+     * Same propagators, but only the given satellites are precomputed. Any satellite of the catalog can still be
+     * propagated on its own.
+     */
+    public PropagatorPool restrictTo(Set<Integer> noradIds) {
+        Set<Integer> restricted = new HashSet<>(noradIds);
+        restricted.retainAll(tles.keySet());
+        return new PropagatorPool(tles, restricted, threadPropagators, generation, nativeSgp4);
+    }
+
+    /**
+     * Propagator of the satellite confined to the calling thread, or null if the satellite is not in the pool.
+     */
+    TLEPropagator propagator(int noradId) {
+        ThreadPropagators local = threadPropagators.get();
+        if (local.generation != generation) {
+            // Drop propagators of satellites removed since this thread last used the pool
+            local.byNoradId.keySet().retainAll(tles.keySet());
+            local.generation = generation;
+        }
+
+        TLE tle = tles.get(noradId);
+        if (tle == null) {
+            return null;
+        }
+        TLEPropagator propagator = local.byNoradId.get(noradId);
+        // Identity check, the cache only replaces a TLE instance when the satellite's TLE changed
+        if (propagator == null || propagator.getTLE() != tle) {
+            propagator = TLEPropagator.selectExtrapolator(tle);
+            local.byNoradId.put(noradId, propagator);
+        }
+        return propagator;
+    }
+
+    /**
+     * Native SGP4 kernel over the whole catalog, or null if the pool was built for the Orekit backend. Satellites the
+     * kernel does not support are still propagated with {@link #propagator(int)}.
+     */
+    NativeSgp4 nativeSgp4() {
+        return nativeSgp4;
+    }
+
+    Set<Integer> noradIds() {
+        return selected;
+    }
+
+    public int size() {
+        return selected.size();
+    }
+
+    static final class ThreadPropagators {
+        private final Map<Integer, TLEPropagator> byNoradId = new HashMap<>();
+        private long generation = -1;
+    }
+}
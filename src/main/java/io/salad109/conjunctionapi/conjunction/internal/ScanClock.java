@@ -0,0 +1,27 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.orekit.time.AbsoluteDate;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Time base of one scan. Inside a scan, time is seconds since its start: Orekit dates are derived by shifting one
+ * epoch, calendar time is only created for the conjunctions that are stored.
+ */
+public record ScanClock(OffsetDateTime start, AbsoluteDate epoch) {
+
+    AbsoluteDate date(double secondsFromStart) {
+        return epoch.shiftedBy(secondsFromStart);
+    }
+
+    OffsetDateTime time(double secondsFromStart) {
+        return start.plusNanos(Math.round(secondsFromStart * 1e9));
+    }
+
+    /**
+     * Clock of the same scan that starts the given number of seconds later, for propagating part of it.
+     */
+    ScanClock shiftedBy(double seconds) {
+        return new ScanClock(time(seconds), date(seconds));
+    }
+}
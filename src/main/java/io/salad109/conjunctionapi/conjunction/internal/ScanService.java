@@ -1,64 +1,145 @@
 package io.salad109.conjunctionapi.conjunction.internal;
 
+import io.salad109.conjunctionapi.satellite.CandidatePairs;
+import io.salad109.conjunctionapi.satellite.PairReductionService;
+import io.salad109.conjunctionapi.satellite.PairTimeWindows;
+import io.salad109.conjunctionapi.satellite.Satellite;
 import io.salad109.conjunctionapi.satellite.SatellitePair;
+import io.salad109.conjunctionapi.satellite.ScreeningPolicy;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.univariate.BrentOptimizer;
 import org.apache.commons.math3.optim.univariate.SearchInterval;
 import org.apache.commons.math3.optim.univariate.UnivariateObjectiveFunction;
 import org.apache.commons.math3.optim.univariate.UnivariatePointValuePair;
-import org.orekit.propagation.analytical.tle.TLEPropagator;
+import org.orekit.time.AbsoluteDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class ScanService {
 
     private static final Logger log = LoggerFactory.getLogger(ScanService.class);
 
+    private static final double CLOSING_SPEED_MARGIN = 1.1;
+
     private final PropagationService propagationService;
+    private final PairReductionService pairReductionService;
+
+    @Value("${conjunction.vector-kernel-enabled:false}")
+    private boolean vectorKernelEnabled;
+
+    @Value("${conjunction.bvh-enabled:false}")
+    private boolean bvhEnabled;
+
+    @Value("${conjunction.bvh-leaf-steps:32}")
+    private int bvhLeafSteps;
+
+    @Value("${conjunction.adaptive-stepping:false}")
+    private boolean adaptiveStepping;
+
+    @Value("${conjunction.time-filter-enabled:false}")
+    private boolean timeFilterEnabled;
+
+    @Value("${conjunction.time-filter-margin-km:10.0}")
+    private double timeFilterMarginKm;
+
+    @Value("${conjunction.streaming-enabled:false}")
+    private boolean streamingEnabled;
+
+    @Value("${conjunction.chunk-memory-mb:256}")
+    private long chunkMemoryMb;
+
+    @Value("${conjunction.pipeline-enabled:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${conjunction.pipeline-propagation-share:0.5}")
+    private double pipelinePropagationShare;
 
-    public ScanService(PropagationService propagationService) {
+    // Created with the first pipelined scan and kept with the service, since propagation caches its propagators per
+    // thread and fresh pools per scan would build them again
+    private Pipeline pipeline;
+
+    public ScanService(PropagationService propagationService, PairReductionService pairReductionService) {
         this.propagationService = propagationService;
+        this.pairReductionService = pairReductionService;
+    }
+
+    @PreDestroy
+    synchronized void shutdownPipeline() {
+        if (pipeline != null) {
+            pipeline.propagationPool().shutdown();
+            pipeline.checkPool().shutdown();
+            pipeline = null;
+        }
     }
 
-    public List<Conjunction> scanForConjunctions(List<SatellitePair> pairs, Map<Integer, TLEPropagator> propagators, double toleranceKm, double thresholdKm, int lookaheadHours, int stepSeconds, int interpolationStride) {
+    private synchronized Pipeline pipeline() {
+        if (pipeline == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            int propagationThreads = Math.clamp(Math.round(cores * pipelinePropagationShare), 1, Math.max(1, cores - 1));
+            int checkThreads = Math.max(1, cores - propagationThreads);
+            log.debug("Pipelining chunks with {} propagation and {} checking threads", propagationThreads, checkThreads);
+            pipeline = new Pipeline(new ForkJoinPool(propagationThreads), new ForkJoinPool(checkThreads));
+        }
+        return pipeline;
+    }
+
+    public List<Conjunction> scanForConjunctions(CandidatePairs pairs, PropagatorPool propagators, double toleranceKm, double thresholdKm, int lookaheadHours, int stepSeconds, int interpolationStride) {
         log.debug("Starting conjunction scan for {} pairs over {} hours (tolerance={} km, threshold={} km, interpStride={})",
                 pairs.size(), lookaheadHours, toleranceKm, thresholdKm, interpolationStride);
+        ScanClock clock = propagationService.startClock(OffsetDateTime.now(ZoneOffset.UTC));
         // Coarse sweep
-        List<CoarseDetection> coarseDetections = coarseSweep(pairs, propagators, OffsetDateTime.now(ZoneOffset.UTC), toleranceKm, stepSeconds, lookaheadHours, interpolationStride);
-        log.info("Coarse sweep found {} detections", coarseDetections.size());
+        SweepResult sweep = coarseSweep(pairs, propagators, clock, toleranceKm, stepSeconds, lookaheadHours, interpolationStride);
+        log.info("Coarse sweep found {} detections in {} events", sweep.detectionCount(), sweep.events().size());
+        return refineEvents(sweep, propagators, clock, thresholdKm, stepSeconds);
+    }
 
-        if (coarseDetections.isEmpty()) {
+    /**
+     * Screen every satellite against every other with the spatial grid engine, without a candidate pair list. Only
+     * detections of pairs the policy screens are kept.
+     */
+    public List<Conjunction> scanCatalogForConjunctions(List<Satellite> satellites, ScreeningPolicy policy, PropagatorPool propagators, double toleranceKm, double thresholdKm, int lookaheadHours, int stepSeconds, int interpolationStride) {
+        log.debug("Starting grid conjunction scan for {} satellites over {} hours (tolerance={} km, threshold={} km, interpStride={})",
+                satellites.size(), lookaheadHours, toleranceKm, thresholdKm, interpolationStride);
+        ScanClock clock = propagationService.startClock(OffsetDateTime.now(ZoneOffset.UTC));
+        // Coarse sweep
+        SweepResult sweep = gridSweep(satellites, policy, propagators, clock, toleranceKm, stepSeconds, lookaheadHours, interpolationStride);
+        log.info("Grid sweep found {} detections in {} events", sweep.detectionCount(), sweep.events().size());
+        return refineEvents(sweep, propagators, clock, thresholdKm, stepSeconds);
+    }
+
+    private List<Conjunction> refineEvents(SweepResult sweep, PropagatorPool propagators,
+                                           ScanClock clock, double thresholdKm, int stepSeconds) {
+        List<CoarseEvent> allEvents = sweep.events();
+        if (allEvents.isEmpty()) {
             log.warn("No close approaches detected in lookahead window");
             return List.of();
         }
 
-        // Group into events
-        Map<SatellitePair, List<List<CoarseDetection>>> eventsByPair = groupIntoEvents(coarseDetections, stepSeconds);
-
-        // Refine each event
-        // Flatten for parallel processing
-        List<List<CoarseDetection>> allEvents = eventsByPair.values().stream()
-                .flatMap(List::stream)
-                .toList();
-
         log.debug("Refining {} events...", allEvents.size());
         long refineStartMs = System.currentTimeMillis();
 
         // Refine and filter by threshold
         List<Conjunction> conjunctionsUnderThreshold = allEvents.parallelStream()
-                .map(event -> refineEvent(event, propagators, stepSeconds, thresholdKm))
+                .map(event -> refineEvent(event, propagators, clock, stepSeconds, thresholdKm, sweep.ephemeris()))
                 .filter(refined -> refined.getMissDistanceKm() <= thresholdKm)
                 .toList();
 
@@ -81,155 +162,500 @@ public class ScanService {
     }
 
     /**
-     * Scan through lookahead window in large steps and record all detections within toleranceKm.
+     * Scan through lookahead window in large steps and extract one event per local minimum of the distances within
+     * toleranceKm. Only satellites that appear in a pair are precomputed.
      */
-    List<CoarseDetection> coarseSweep(List<SatellitePair> pairs, Map<Integer, TLEPropagator> propagators,
-                                      OffsetDateTime startTime, double toleranceKm, int stepSeconds, int lookaheadHours,
-                                      int interpolationStride) {
+    SweepResult coarseSweep(CandidatePairs pairs, PropagatorPool propagators,
+                            ScanClock clock, double toleranceKm, int stepSeconds, int lookaheadHours,
+                            int interpolationStride) {
         long startMs = System.currentTimeMillis();
 
         int totalSteps = (lookaheadHours * 3600) / stepSeconds + 1;
         log.debug("Coarse sweep: {} steps over {} hours at {}s intervals", totalSteps, lookaheadHours, stepSeconds);
 
-        // Pre-compute all satellite positions (with optional interpolation)
-        PropagationService.PositionCache precomputedPositions = propagationService.precomputePositions(
-                propagators, startTime, stepSeconds, totalSteps, interpolationStride);
-
-        // Check all pairs
-        List<CoarseDetection> detections = checkPairs(pairs, precomputedPositions, toleranceKm);
+        // Satellites filtered out of every pair would fill the cache with positions that are never read
+        PropagatorPool referenced = propagators.restrictTo(pairs.referencedNoradIds());
+        log.debug("Pairs reference {} of {} satellites", referenced.size(), propagators.size());
+
+        // Pre-compute all referenced satellite positions (with optional interpolation), then check all pairs
+        SweepResult sweep;
+        if (streamingEnabled) {
+            sweep = streamChunks(pairs, referenced, clock, toleranceKm, stepSeconds, totalSteps, interpolationStride);
+        } else {
+            try (PositionSource precomputedPositions = propagationService.precomputePositions(
+                    referenced, clock, stepSeconds, totalSteps, interpolationStride)) {
+                PairTimeWindows windows = timeFilterEnabled
+                        ? findTimeWindows(pairs, clock, precomputedPositions.positionErrorBoundKm(), totalSteps,
+                        toleranceKm, stepSeconds)
+                        : null;
+                sweep = checkPairs(pairs, windows, precomputedPositions, Chunk.whole(totalSteps), toleranceKm,
+                        stepSeconds);
+            }
+        }
 
         log.debug("Coarse sweep completed in {}ms with {} total detections",
-                System.currentTimeMillis() - startMs, detections.size());
-        return detections;
+                System.currentTimeMillis() - startMs, sweep.detectionCount());
+        return sweep;
     }
 
-    private List<CoarseDetection> checkPairs(List<SatellitePair> pairs, PropagationService.PositionCache precomputedPositions,
-                                             double toleranceKm) {
+    /**
+     * Coarse sweep in chunks of steps, each propagated, checked and released before the next one, so only one chunk of
+     * positions is held however long the lookahead. Chunks start on stride points and share their first step with the
+     * last one of the previous chunk, so positions and events are the same as in a single pass. The Chebyshev
+     * ephemeris of a chunk is released with it, refinement then propagates.
+     * <p>
+     * When pipelined, the next chunk is propagated on its own share of the cores while the current one is checked on
+     * the rest. Two chunks are then held at a time, so each gets half the memory budget.
+     */
+    private SweepResult streamChunks(CandidatePairs pairs, PropagatorPool propagators, ScanClock clock,
+                                     double toleranceKm, int stepSeconds, int totalSteps, int interpolationStride) {
+        int stride = Math.max(1, interpolationStride);
+        long chunkBudgetBytes = chunkMemoryMb * 1024 * 1024 / (pipelineEnabled ? 2 : 1);
+        long budgetSteps = chunkBudgetBytes / Math.max(1, propagationService.bytesPerStep(propagators.size()));
+        // Steps from the first of a chunk to the first of the next, a multiple of the stride
+        int chunkLength = (int) Math.max(stride, Math.min(totalSteps, budgetSteps - 1) / stride * stride);
+
+        Map<Integer, EventTracker.OpenRun> openRuns = new ConcurrentHashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (int firstStep = 0; ; firstStep += chunkLength) {
+            int chunkSteps = Math.min(chunkLength + 1, totalSteps - firstStep);
+            boolean last = firstStep + chunkSteps == totalSteps;
+            chunks.add(new Chunk(firstStep, chunkSteps, firstStep == 0 ? 0 : 1, last, openRuns));
+            if (last) break;
+        }
+        log.debug("Streaming {} steps in {} chunks of {} within {} MB", totalSteps, chunks.size(), chunkLength,
+                chunkMemoryMb);
+
+        Function<Chunk, PositionSource> propagate = chunk -> propagationService.precomputePositions(propagators,
+                clock.shiftedBy((double) chunk.firstStep() * stepSeconds), stepSeconds, chunk.steps(),
+                interpolationStride);
+        Pipeline stages = pipelineEnabled ? pipeline() : null;
+
+        List<CoarseEvent> events = new ArrayList<>();
+        long detectionCount = 0;
+        PairTimeWindows windows = null;
+        double windowsErrorBoundKm = 0;
+        // Parallel streams run in the pool of the task that starts them, which gives each stage its own cores
+        CompletableFuture<PositionSource> next = stages != null
+                ? CompletableFuture.supplyAsync(() -> propagate.apply(chunks.getFirst()), stages.propagationPool())
+                : null;
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                try (PositionSource precomputedPositions = next != null ? next.join() : propagate.apply(chunk)) {
+                    if (next != null) {
+                        Chunk following = chunk.last() ? null : chunks.get(i + 1);
+                        next = following == null ? null : CompletableFuture.supplyAsync(
+                                () -> propagate.apply(following), stages.propagationPool());
+                    }
+                    // Windows padded for a larger error still hold for a smaller one, so they are only rebuilt
+                    // when a chunk has a larger error than every chunk before it
+                    double errorBoundKm = precomputedPositions.positionErrorBoundKm();
+                    if (timeFilterEnabled && (windows == null || errorBoundKm > windowsErrorBoundKm)) {
+                        windows = findTimeWindows(pairs, clock, errorBoundKm, totalSteps, toleranceKm,
+                                stepSeconds);
+                        windowsErrorBoundKm = errorBoundKm;
+                    }
+                    PairTimeWindows chunkWindows = windows;
+                    Supplier<SweepResult> check = () -> checkPairs(pairs, chunkWindows, precomputedPositions,
+                            chunk, toleranceKm, stepSeconds);
+                    SweepResult part = stages != null
+                            ? CompletableFuture.supplyAsync(check, stages.checkPool()).join()
+                            : check.get();
+                    events.addAll(part.events());
+                    detectionCount += part.detectionCount();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Release the chunk still being propagated once it is done
+            if (next != null) {
+                next.thenAccept(PositionSource::close);
+            }
+            throw e;
+        }
+        return new SweepResult(events, detectionCount, null);
+    }
+
+    /**
+     * Scan through lookahead window in large steps, comparing only satellites in neighbouring grid cells at each step,
+     * and extract one event per local minimum of the distances within toleranceKm.
+     */
+    SweepResult gridSweep(List<Satellite> satellites, ScreeningPolicy policy, PropagatorPool propagators,
+                          ScanClock clock, double toleranceKm, int stepSeconds, int lookaheadHours,
+                          int interpolationStride) {
+        long startMs = System.currentTimeMillis();
+
+        int totalSteps = (lookaheadHours * 3600) / stepSeconds + 1;
+        log.debug("Grid sweep: {} steps over {} hours at {}s intervals", totalSteps, lookaheadHours, stepSeconds);
+
+        SweepResult sweep;
+        try (PositionSource precomputedPositions = propagationService.precomputePositions(
+                propagators, clock, stepSeconds, totalSteps, interpolationStride)) {
+            sweep = checkGrid(satellites, policy, precomputedPositions, toleranceKm);
+        }
+
+        log.debug("Grid sweep completed in {}ms with {} total detections",
+                System.currentTimeMillis() - startMs, sweep.detectionCount());
+        return sweep;
+    }
+
+    private SweepResult checkGrid(List<Satellite> satellites, ScreeningPolicy policy,
+                                  PositionSource precomputedPositions, double toleranceKm) {
+        long checkStart = System.currentTimeMillis();
+
+        Map<Integer, Integer> noradIdToArrayId = precomputedPositions.noradIdToArrayId();
+        int satelliteCount = noradIdToArrayId.size();
+        Satellite[] satellitesByArrayId = new Satellite[satelliteCount];
+        for (Satellite satellite : satellites) {
+            indexByArrayId(satellitesByArrayId, noradIdToArrayId, satellite);
+        }
+        // Object types classified once, the policy is checked on every detection
+        boolean[] payload = new boolean[satelliteCount];
+        boolean[] debris = new boolean[satelliteCount];
+        for (int id = 0; id < satelliteCount; id++) {
+            if (satellitesByArrayId[id] != null) {
+                payload[id] = ScreeningPolicy.isPayload(satellitesByArrayId[id]);
+                debris[id] = ScreeningPolicy.isDebris(satellitesByArrayId[id]);
+            }
+        }
+
+        // Pad by the storage error of both positions so a lossy cache never drops a detection
+        double paddedToleranceKm = toleranceKm + 2 * precomputedPositions.positionErrorBoundKm();
+        double tolSq = paddedToleranceKm * paddedToleranceKm;
+        int totalSteps = precomputedPositions.totalSteps();
+        LongAdder checkedPairs = new LongAdder();
+
+        // Every stream task screens its steps with its own grid and buffer, dropped with the task
+        GridTask screened = IntStream.range(0, totalSteps).parallel().collect(
+                () -> new GridTask(satelliteCount),
+                (task, step) -> {
+                    SpatialGrid grid = task.grid();
+                    DetectionBuffer buffer = task.buffer();
+                    grid.build(precomputedPositions, satelliteCount, step, paddedToleranceKm);
+                    long[] checked = {0};
+                    grid.forEachCandidatePair((a, b) -> {
+                        checked[0]++;
+                        double distSq = precomputedPositions.distanceSquaredAt(a, b, step, tolSq);
+                        if (distSq >= tolSq) return;
+                        int first = Math.min(a, b);
+                        int second = Math.max(a, b);
+                        if (satellitesByArrayId[first] == null || satellitesByArrayId[second] == null) return;
+                        if (!policy.screens(payload[first], debris[first], payload[second], debris[second])) return;
+                        buffer.add(detectionKey(first, second, step, satelliteCount, totalSteps), distSq);
+                    });
+                    checkedPairs.add(checked[0]);
+                },
+                GridTask::merge);
+
+        log.debug("Evaluated {} candidate pair-steps for {} satellites", checkedPairs.sum(), satelliteCount);
+        log.debug("Grid checking completed in {}ms", System.currentTimeMillis() - checkStart);
+        return extractEvents(DetectionBuffer.merge(screened.buffers()), satellitesByArrayId, precomputedPositions);
+    }
+
+    /**
+     * Time windows of every pair, wide enough for the padded tolerance the pairs are checked against plus the margin
+     * for the secular model of the time filter.
+     */
+    private PairTimeWindows findTimeWindows(CandidatePairs pairs, ScanClock clock, double positionErrorBoundKm,
+                                            int totalSteps, double toleranceKm, int stepSeconds) {
+        double distanceKm = toleranceKm + 2 * positionErrorBoundKm + timeFilterMarginKm;
+        double windowSeconds = (double) (totalSteps - 1) * stepSeconds;
+        return pairReductionService.findTimeWindows(pairs, clock.start(), windowSeconds, distanceKm);
+    }
+
+    /**
+     * Sweep every pair over the steps of the chunk. Windows and events are in steps of the scan, the cache and the
+     * ranges swept in steps of the chunk.
+     */
+    private SweepResult checkPairs(CandidatePairs pairs, PairTimeWindows windows, PositionSource precomputedPositions,
+                                   Chunk chunk, double toleranceKm, int stepSeconds) {
         log.debug("Checking {} pairs for close approaches", pairs.size());
         long checkStart = System.currentTimeMillis();
 
-        double tolSq = toleranceKm * toleranceKm; // skip sqrt by comparing squared distances
-        int totalSteps = precomputedPositions.times().length;
-
-        List<CoarseDetection> detections = pairs.parallelStream()
-                .<CoarseDetection>mapMulti((pair, consumer) -> {
-                    Integer idxA = precomputedPositions.noradIdToArrayId().get(pair.a().getNoradCatId());
-                    Integer idxB = precomputedPositions.noradIdToArrayId().get(pair.b().getNoradCatId());
-                    if (idxA == null || idxB == null) return;
-
-                    for (int step = 0; step < totalSteps; step++) {
-                        if (!precomputedPositions.validAt(idxA, idxB, step)) continue;
-                        double distSq = precomputedPositions.distanceSquaredAt(idxA, idxB, step, tolSq);
-                        if (distSq < tolSq) {
-                            consumer.accept(new CoarseDetection(pair, precomputedPositions.times()[step], Math.sqrt(distSq)));
-                        }
+        // Resolve every satellite once, pairs then go from list index to array id without hashing
+        Map<Integer, Integer> noradIdToArrayId = precomputedPositions.noradIdToArrayId();
+        List<Satellite> satellites = pairs.satellites();
+        int[] arrayIds = new int[satellites.size()];
+        Satellite[] satellitesByArrayId = new Satellite[noradIdToArrayId.size()];
+        // Per satellite share of the closing distance per step, for adaptive stepping
+        double[] closingKmPerStep = new double[noradIdToArrayId.size()];
+        for (int i = 0; i < satellites.size(); i++) {
+            Integer arrayId = noradIdToArrayId.get(satellites.get(i).getNoradCatId());
+            arrayIds[i] = arrayId == null ? -1 : arrayId;
+            if (arrayId != null) {
+                satellitesByArrayId[arrayId] = satellites.get(i);
+                closingKmPerStep[arrayId] = closingSpeedShareKmS(satellites.get(i)) * stepSeconds;
+            }
+        }
+
+        // Pad by the storage error of both positions so a lossy cache never drops a detection
+        double paddedToleranceKm = toleranceKm + 2 * precomputedPositions.positionErrorBoundKm();
+        double tolSq = paddedToleranceKm * paddedToleranceKm; // skip sqrt by comparing squared distances
+        int totalSteps = precomputedPositions.totalSteps();
+        HeapPositionCache vectorCache = vectorKernelCache(precomputedPositions);
+        BoundingSphereHierarchy hierarchy = bvhEnabled ? buildHierarchy(precomputedPositions) : null;
+        double skipToleranceKm = skipToleranceKm(paddedToleranceKm, precomputedPositions.positionErrorBoundKm());
+        LongAdder checkedSteps = new LongAdder();
+
+        // Every stream task tracks its pairs with its own tracker, the events are merged as tasks finish
+        EventTracker swept = IntStream.range(0, pairs.size()).parallel().collect(
+                () -> new EventTracker(precomputedPositions, chunk.firstStep(), satellitesByArrayId),
+                (hits, k) -> {
+                    int idxA = arrayIds[pairs.first(k)];
+                    int idxB = arrayIds[pairs.second(k)];
+                    if (idxA < 0 || idxB < 0) return;
+                    if (windows != null && windows.windowCount(k) == 0) return;
+
+                    // Hits arrive in ascending step order, so runs and their minima are tracked as the pair is swept
+                    hits.resume(idxA, idxB, chunk.openRuns().remove(k));
+                    StepRangeConsumer ranges;
+                    if (vectorCache != null) {
+                        ranges = (fromStep, toStep) -> {
+                            checkedSteps.add(toStep - fromStep);
+                            VectorDistanceKernel.scan(vectorCache, idxA, idxB, fromStep, toStep, tolSq, hits);
+                        };
+                    } else if (adaptiveStepping) {
+                        double pairClosingKmPerStep = closingKmPerStep[idxA] + closingKmPerStep[idxB];
+                        ranges = (fromStep, toStep) -> checkedSteps.add(scanRangeAdaptive(precomputedPositions,
+                                idxA, idxB, fromStep, toStep, skipToleranceKm, pairClosingKmPerStep, tolSq, hits));
+                    } else {
+                        ranges = (fromStep, toStep) -> {
+                            checkedSteps.add(toStep - fromStep);
+                            scanRange(precomputedPositions, idxA, idxB, fromStep, toStep, tolSq, hits);
+                        };
                     }
-                })
-                .toList();
 
+                    if (windows != null) {
+                        StepRangeConsumer windowed = ranges;
+                        ranges = (fromStep, toStep) -> forEachWindowRange(windows, k, stepSeconds, chunk.firstStep(),
+                                fromStep, toStep, windowed);
+                    }
+                    if (hierarchy != null) {
+                        // The shared first step of a chunk was swept with the previous one
+                        StepRangeConsumer owned = ranges;
+                        hierarchy.forEachCandidateRange(idxA, idxB, paddedToleranceKm, (fromStep, toStep) -> {
+                            if (Math.max(fromStep, chunk.fromStep()) < toStep) {
+                                owned.accept(Math.max(fromStep, chunk.fromStep()), toStep);
+                            }
+                        });
+                    } else {
+                        ranges.accept(chunk.fromStep(), totalSteps);
+                    }
+                    if (chunk.last()) {
+                        hits.finish();
+                    } else {
+                        EventTracker.OpenRun run = hits.suspend();
+                        if (run != null) chunk.openRuns().put(k, run);
+                    }
+                },
+                EventTracker::merge);
+
+        log.debug("Evaluated {} of {} pair-steps", checkedSteps.sum(),
+                (long) pairs.size() * (totalSteps - chunk.fromStep()));
         log.debug("Pair checking completed in {}ms", System.currentTimeMillis() - checkStart);
-        return detections;
+        return new SweepResult(swept.events(), swept.sampleCount(),
+                ChebyshevPositions.ephemerisOf(precomputedPositions));
     }
 
     /**
-     * Group detections by pair, then cluster consecutive detections into events (orbital passes).
-     * Two detections belong to the same event if they're within 3 steps of each other.
+     * Sort the grid detections by pair and step, then feed each pair's run through an event tracker.
      */
-    Map<SatellitePair, List<List<CoarseDetection>>> groupIntoEvents(List<CoarseDetection> detections, int stepSeconds) {
-        // Group by pair
-        Map<SatellitePair, List<CoarseDetection>> byPair = detections.stream()
-                .collect(Collectors.groupingBy(CoarseDetection::pair));
+    private SweepResult extractEvents(DetectionBuffer detections, Satellite[] satellitesByArrayId,
+                                      PositionSource precomputedPositions) {
+        long startMs = System.currentTimeMillis();
+        detections.sortByKey();
+
+        int satelliteCount = satellitesByArrayId.length;
+        int totalSteps = precomputedPositions.totalSteps();
+        EventTracker tracker = new EventTracker(precomputedPositions, satellitesByArrayId);
+        long currentPair = -1;
+        for (int i = 0; i < detections.size(); i++) {
+            long pair = detections.key(i) / totalSteps;
+            if (pair != currentPair) {
+                tracker.finish();
+                int a = (int) (pair / satelliteCount);
+                int b = (int) (pair % satelliteCount);
+                tracker.reset(a, b);
+                currentPair = pair;
+            }
+            tracker.accept((int) (detections.key(i) % totalSteps), detections.distanceSq(i));
+        }
+        tracker.finish();
 
-        // Cluster each pair's detections by time gap
-        int gapThresholdSeconds = stepSeconds * 3;
+        log.debug("Extracted {} events from {} detections in {}ms",
+                tracker.events().size(), detections.size(), System.currentTimeMillis() - startMs);
+        return new SweepResult(tracker.events(), detections.size(),
+                ChebyshevPositions.ephemerisOf(precomputedPositions));
+    }
 
-        Map<SatellitePair, List<List<CoarseDetection>>> result = byPair.entrySet().parallelStream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> {
-                            List<CoarseDetection> sorted = entry.getValue().stream()
-                                    .sorted(Comparator.comparing(CoarseDetection::time))
-                                    .toList();
-                            return clusterByTimeGap(sorted, gapThresholdSeconds);
-                        }
-                ));
+    private static void indexByArrayId(Satellite[] satellitesByArrayId, Map<Integer, Integer> noradIdToArrayId,
+                                       Satellite satellite) {
+        Integer arrayId = noradIdToArrayId.get(satellite.getNoradCatId());
+        if (arrayId != null) {
+            satellitesByArrayId[arrayId] = satellite;
+        }
+    }
 
-        log.debug("Grouped into {} events across {} pairs",
-                result.values().stream().mapToInt(List::size).sum(), result.size());
+    /**
+     * Pack a detection into one key that sorts by pair, then by step.
+     */
+    private static long detectionKey(int a, int b, int step, int satelliteCount, int totalSteps) {
+        return ((long) a * satelliteCount + b) * totalSteps + step;
+    }
 
-        return result;
+    private BoundingSphereHierarchy buildHierarchy(PositionSource precomputedPositions) {
+        long startMs = System.currentTimeMillis();
+        BoundingSphereHierarchy hierarchy = BoundingSphereHierarchy.build(
+                precomputedPositions, precomputedPositions.noradIdToArrayId().size(), bvhLeafSteps);
+        log.debug("Built bounding sphere hierarchy with {}-step leaves in {}ms",
+                bvhLeafSteps, System.currentTimeMillis() - startMs);
+        return hierarchy;
     }
 
     /**
-     * Cluster sorted detections into groups where consecutive items are within gapThresholdSeconds.
+     * Pass the parts of [fromStep, toStep) covered by the time windows of a pair on to ranges, each window widened to
+     * the steps around it. Ranges stay ascending and disjoint when neighbouring windows share a step. Steps are those
+     * of a chunk starting at firstStep.
      */
-    private List<List<CoarseDetection>> clusterByTimeGap(List<CoarseDetection> sorted, int gapThresholdSeconds) {
-        List<List<CoarseDetection>> clusters = new ArrayList<>();
-        if (sorted.isEmpty()) return clusters;
-
-        List<CoarseDetection> currentCluster = new ArrayList<>();
-        currentCluster.add(sorted.getFirst());
+    private static void forEachWindowRange(PairTimeWindows windows, int pair, int stepSeconds, int firstStep,
+                                           int fromStep, int toStep, StepRangeConsumer ranges) {
+        int covered = fromStep;
+        for (int w = 0; w < windows.windowCount(pair); w++) {
+            int windowFrom = Math.max(covered, (int) Math.floor(windows.start(pair, w) / stepSeconds) - firstStep);
+            int windowTo = Math.min(toStep, (int) Math.ceil(windows.end(pair, w) / stepSeconds) + 1 - firstStep);
+            if (windowFrom < windowTo) {
+                ranges.accept(windowFrom, windowTo);
+                covered = windowTo;
+            }
+        }
+    }
 
-        for (int i = 1; i < sorted.size(); i++) {
-            CoarseDetection prev = sorted.get(i - 1);
-            CoarseDetection curr = sorted.get(i);
+    /**
+     * Distance in the cache below which adaptive stepping may not skip steps that the fixed-step scan would check at
+     * paddedToleranceKm. The closing bound holds for true positions, and converting a cached distance to a true one and
+     * back costs both storage errors twice: once at the step jumped from and once at the step jumped over.
+     */
+    static double skipToleranceKm(double paddedToleranceKm, double positionErrorBoundKm) {
+        return paddedToleranceKm + 4 * positionErrorBoundKm;
+    }
 
-            long gapSeconds = ChronoUnit.SECONDS.between(prev.time(), curr.time());
+    /**
+     * Report every step in [fromStep, toStep) where the pair is valid and within tolerance.
+     */
+    static void scanRange(PositionSource precomputedPositions, int a, int b, int fromStep, int toStep, double tolSq,
+                          StepHitConsumer hits) {
+        for (int step = fromStep; step < toStep; step++) {
+            if (!precomputedPositions.validAt(a, b, step)) continue;
+            double distSq = precomputedPositions.distanceSquaredAt(a, b, step, tolSq);
+            if (distSq < tolSq) {
+                hits.accept(step, distSq);
+            }
+        }
+    }
 
-            if (gapSeconds <= gapThresholdSeconds) {
-                currentCluster.add(curr);
-            } else {
-                clusters.add(currentCluster);
-                currentCluster = new ArrayList<>();
-                currentCluster.add(curr);
+    /**
+     * Same detections as {@link #scanRange}, but jumps ahead while the pair is far apart. Two objects closing at most
+     * closingKmPerStep per step cannot get within skipToleranceKm sooner than (distance - skipToleranceKm) /
+     * closingKmPerStep steps later. The partial sums of distanceSquaredAt are lower bounds, so early exits still give
+     * a safe jump. Returns the number of steps evaluated.
+     */
+    static int scanRangeAdaptive(PositionSource precomputedPositions, int a, int b, int fromStep, int toStep,
+                                 double skipToleranceKm, double closingKmPerStep, double tolSq, StepHitConsumer hits) {
+        int evaluated = 0;
+        int step = fromStep;
+        while (step < toStep) {
+            if (!precomputedPositions.validAt(a, b, step)) {
+                step++;
+                continue;
+            }
+            evaluated++;
+            double distSq = precomputedPositions.distanceSquaredAt(a, b, step, tolSq);
+            if (distSq < tolSq) {
+                hits.accept(step, distSq);
+                step++;
+                continue;
             }
+            double skipSteps = (Math.sqrt(distSq) - skipToleranceKm) / closingKmPerStep;
+            step += skipSteps >= 2 ? (int) Math.min(skipSteps, toStep - step) : 1;
         }
-        clusters.add(currentCluster);
+        return evaluated;
+    }
+
+    /**
+     * A satellite's share of the bound on how fast a pair can approach, from its perigee speed. The bound of a pair
+     * is the sum of both shares. The margin covers the difference between mean elements and SGP4's osculating state.
+     */
+    private static double closingSpeedShareKmS(Satellite satellite) {
+        return CLOSING_SPEED_MARGIN * satellite.maxSpeedKmS();
+    }
 
-        return clusters;
+    /**
+     * The vector kernel is opt-in and needs the incubator module and a step-contiguous heap cache.
+     * Returns the cache to run it on, or null to use the scalar kernel.
+     */
+    private HeapPositionCache vectorKernelCache(PositionSource precomputedPositions) {
+        if (!vectorKernelEnabled) {
+            return null;
+        }
+        if (!VectorApi.isAvailable()) {
+            log.warn("Vector kernel enabled but jdk.incubator.vector is not loaded, using scalar kernel");
+            return null;
+        }
+        if (!(precomputedPositions instanceof HeapPositionCache heapCache) || !heapCache.isStepContiguous()) {
+            log.warn("Vector kernel requires the HEAP store, DOUBLE precision and SATELLITE_PLANAR layout, using scalar kernel");
+            return null;
+        }
+        return heapCache;
     }
 
     /**
-     * Refine an event (cluster of coarse detections) using Brent's method to find more accurate TCA and minimum distance.
-     * Uses linear interpolation during optimization to avoid expensive SGP4 calls, then does one final propagation
-     * at the found TCA for accurate distance measurement.
+     * Refine an event (closest coarse detection of a pass) using Brent's method to find more accurate TCA and minimum distance.
+     * Interpolates between the window endpoints during optimization to avoid expensive SGP4 calls, linearly or with
+     * cubic Hermite polynomials through the endpoint velocities, then does one final propagation at the found TCA for
+     * accurate distance measurement. Given the Chebyshev ephemeris of the sweep, both the search and the final
+     * distance and velocity are evaluated from it instead, without any SGP4 call.
      */
-    Conjunction refineEvent(List<CoarseDetection> event, Map<Integer, TLEPropagator> propagators, int stepSeconds, double thresholdKm) {
-        CoarseDetection best = event.stream()
-                .min(Comparator.comparing(CoarseDetection::distance))
-                .orElseThrow();
-        SatellitePair pair = best.pair();
-
-        // Search interval is stepSeconds/2 on each side of best detection
-        long halfWindowNanos = (stepSeconds * 1_000_000_000L) / 2;
-        long windowNanos = 2 * halfWindowNanos;
-        OffsetDateTime startTime = best.time().minusNanos(halfWindowNanos);
-        OffsetDateTime endTime = best.time().plusNanos(halfWindowNanos);
-
-        // Pre-compute positions at window endpoints (4 SGP4 calls total)
-        double[] startA = propagationService.propagateToPositionKm(pair.a(), propagators, startTime);
-        double[] endA = propagationService.propagateToPositionKm(pair.a(), propagators, endTime);
-        double[] startB = propagationService.propagateToPositionKm(pair.b(), propagators, startTime);
-        double[] endB = propagationService.propagateToPositionKm(pair.b(), propagators, endTime);
+    Conjunction refineEvent(CoarseEvent event, PropagatorPool propagators, ScanClock clock,
+                            int stepSeconds, double thresholdKm, ChebyshevEphemeris ephemeris) {
+        SatellitePair pair = event.pair();
+        // Squared distance is close to quadratic around TCA, so centre on the vertex through the neighbouring samples
+        double bestSeconds = (event.step() + parabolaVertexOffset(event)) * stepSeconds;
+
+        // Search interval is stepSeconds/2 on each side of the estimated TCA, in seconds since scan start
+        double windowSeconds = stepSeconds;
+        double startSeconds = bestSeconds - windowSeconds / 2;
+
+        if (ephemeris != null) {
+            Integer idxA = ephemeris.noradIdToArrayId().get(pair.a().getNoradCatId());
+            Integer idxB = ephemeris.noradIdToArrayId().get(pair.b().getNoradCatId());
+            if (idxA != null && idxB != null
+                    && ephemeris.isValid(idxA, startSeconds) && ephemeris.isValid(idxB, startSeconds)
+                    && ephemeris.isValid(idxA, startSeconds + windowSeconds)
+                    && ephemeris.isValid(idxB, startSeconds + windowSeconds)) {
+                return refineFromEphemeris(pair, ephemeris, idxA, idxB, clock, startSeconds, windowSeconds, thresholdKm);
+            }
+        }
+
+        AbsoluteDate startDate = clock.date(startSeconds);
+        AbsoluteDate endDate = clock.date(startSeconds + windowSeconds);
+
+        // Pre-compute states at window endpoints (4 SGP4 calls total)
+        double[] startA = propagationService.propagateToStateKm(pair.a(), propagators, startDate);
+        double[] endA = propagationService.propagateToStateKm(pair.a(), propagators, endDate);
+        double[] startB = propagationService.propagateToStateKm(pair.b(), propagators, startDate);
+        double[] endB = propagationService.propagateToStateKm(pair.b(), propagators, endDate);
+        boolean hermite = propagationService.interpolation() == PropagationService.Interpolation.HERMITE;
 
         // Use Brent's method from Apache Commons Math
         // Only absolute tolerance matters. 0.017s = 0.25km@15km/s worst-case scenario is sufficient precision
-        BrentOptimizer optimizer = new BrentOptimizer(1e-8, 16_666_667);
+        BrentOptimizer optimizer = new BrentOptimizer(1e-8, 1.0 / 60);
 
         // Minimize distance squared - same minimum location as with sqrt
-        UnivariateObjectiveFunction objectiveFunction = new UnivariateObjectiveFunction(offsetNanos -> {
-            double t = offsetNanos / windowNanos; // 0 to 1
-            // Linear interpolation for both satellites
-            double ax = startA[0] + t * (endA[0] - startA[0]);
-            double ay = startA[1] + t * (endA[1] - startA[1]);
-            double az = startA[2] + t * (endA[2] - startA[2]);
-            double bx = startB[0] + t * (endB[0] - startB[0]);
-            double by = startB[1] + t * (endB[1] - startB[1]);
-            double bz = startB[2] + t * (endB[2] - startB[2]);
-
-            double dx = ax - bx;
-            double dy = ay - by;
-            double dz = az - bz;
+        UnivariateObjectiveFunction objectiveFunction = new UnivariateObjectiveFunction(offsetSeconds -> {
+            double t = offsetSeconds / windowSeconds; // 0 to 1
+            double dx = relativeCoordinate(startA, endA, startB, endB, 0, windowSeconds, t, hermite);
+            double dy = relativeCoordinate(startA, endA, startB, endB, 1, windowSeconds, t, hermite);
+            double dz = relativeCoordinate(startA, endA, startB, endB, 2, windowSeconds, t, hermite);
 
             return dx * dx + dy * dy + dz * dz;
         });
@@ -237,20 +663,62 @@ public class ScanService {
         UnivariatePointValuePair result = optimizer.optimize(
                 objectiveFunction,
                 GoalType.MINIMIZE,
-                new SearchInterval(0, windowNanos),
+                new SearchInterval(0, windowSeconds),
                 MaxEval.unlimited()
         );
 
-        OffsetDateTime tca = startTime.plusNanos((long) result.getPoint());
+        double tcaSeconds = startSeconds + result.getPoint();
+        AbsoluteDate tcaDate = clock.date(tcaSeconds);
 
         // Final accurate propagation at TCA for real distance
-        double minDistance = propagationService.propagateAndMeasureDistance(pair, propagators, tca);
+        double minDistance = propagationService.propagateAndMeasureDistance(pair, propagators, tcaDate);
 
         // Only calculate velocity for conjunctions under threshold
         double relativeVelocity = minDistance <= thresholdKm
-                ? propagationService.propagateAndMeasureVelocity(pair, propagators, tca)
+                ? propagationService.propagateAndMeasureVelocity(pair, propagators, tcaDate)
+                : 0.0;
+
+        return conjunction(pair, minDistance, clock, tcaSeconds, relativeVelocity);
+    }
+
+    /**
+     * Same search as {@link #refineEvent}, on the fitted series of both satellites. The series are as accurate
+     * anywhere in the window as at its ends, so no interpolation and no final propagation is needed.
+     */
+    private Conjunction refineFromEphemeris(SatellitePair pair, ChebyshevEphemeris ephemeris, int idxA, int idxB,
+                                            ScanClock clock, double startSeconds, double windowSeconds,
+                                            double thresholdKm) {
+        BrentOptimizer optimizer = new BrentOptimizer(1e-8, 1.0 / 60);
+        UnivariateObjectiveFunction objectiveFunction = new UnivariateObjectiveFunction(
+                offsetSeconds -> ephemeris.distanceSquared(idxA, idxB, startSeconds + offsetSeconds));
+
+        UnivariatePointValuePair result = optimizer.optimize(
+                objectiveFunction,
+                GoalType.MINIMIZE,
+                new SearchInterval(0, windowSeconds),
+                MaxEval.unlimited()
+        );
+
+        double tcaSeconds = startSeconds + result.getPoint();
+        double[] state = new double[12];
+        ephemeris.state(idxA, tcaSeconds, state, 0, true);
+        ephemeris.state(idxB, tcaSeconds, state, 6, true);
+        double minDistance = Math.sqrt(result.getValue());
+
+        // km/s to m/s, only for conjunctions under threshold
+        double relativeVelocity = minDistance <= thresholdKm
+                ? 1000.0 * Math.sqrt(square(state[3] - state[9]) + square(state[4] - state[10]) + square(state[5] - state[11]))
                 : 0.0;
 
+        return conjunction(pair, minDistance, clock, tcaSeconds, relativeVelocity);
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    private static Conjunction conjunction(SatellitePair pair, double minDistance, ScanClock clock,
+                                           double tcaSeconds, double relativeVelocity) {
         // Ensure object 1 norad id < object 2 norad id
         int object1 = Math.min(pair.a().getNoradCatId(), pair.b().getNoradCatId());
         int object2 = Math.max(pair.a().getNoradCatId(), pair.b().getNoradCatId());
@@ -260,11 +728,93 @@ public class ScanService {
                 object1,
                 object2,
                 minDistance,
-                tca,
+                clock.time(tcaSeconds),
                 relativeVelocity
         );
     }
 
-    record CoarseDetection(SatellitePair pair, OffsetDateTime time, double distance) {
+    /**
+     * One coordinate of A minus B at fraction t of the refinement window, from the endpoint states of both satellites.
+     */
+    private static double relativeCoordinate(double[] startA, double[] endA, double[] startB, double[] endB,
+                                             int axis, double windowSeconds, double t, boolean hermite) {
+        if (hermite) {
+            // Hermite is linear in the samples, so the relative motion interpolates like either satellite
+            return CubicHermite.interpolate(startA[axis] - startB[axis], startA[axis + 3] - startB[axis + 3],
+                    endA[axis] - endB[axis], endA[axis + 3] - endB[axis + 3], windowSeconds, t);
+        }
+        double a = startA[axis] + t * (endA[axis] - startA[axis]);
+        double b = startB[axis] + t * (endB[axis] - startB[axis]);
+        return a - b;
+    }
+
+    /**
+     * Offset in steps of the vertex of the parabola through the event's three squared-distance samples, within
+     * [-0.5, 0.5] since the middle sample is the smallest. Zero if a neighbour is missing.
+     */
+    private static double parabolaVertexOffset(CoarseEvent event) {
+        double previous = event.previousDistSq();
+        double next = event.nextDistSq();
+        double middle = event.distance() * event.distance();
+        double curvature = previous - 2 * middle + next;
+        if (!(curvature > 0)) {
+            return 0;
+        }
+        return Math.clamp(0.5 * (previous - next) / curvature, -0.5, 0.5);
+    }
+
+    @FunctionalInterface
+    interface StepHitConsumer {
+        void accept(int step, double distSq);
+    }
+
+    @FunctionalInterface
+    interface StepRangeConsumer {
+        void accept(int fromStep, int toStep);
+    }
+
+    /**
+     * Closest coarse sample of a pass, with the squared distances one step before and after it (NaN if not available).
+     */
+    record CoarseEvent(SatellitePair pair, int step, double distance, double previousDistSq, double nextDistSq) {
+    }
+
+    /**
+     * Events of a sweep, with the Chebyshev ephemeris its positions came from (null if they were stored per step).
+     */
+    record SweepResult(List<CoarseEvent> events, long detectionCount, ChebyshevEphemeris ephemeris) {
+    }
+
+    /**
+     * Grid and detections of the steps one stream task screened. Tasks are merged by collecting their buffers.
+     */
+    private record GridTask(SpatialGrid grid, List<DetectionBuffer> buffers) {
+        GridTask(int satelliteCount) {
+            this(new SpatialGrid(satelliteCount), new ArrayList<>(List.of(new DetectionBuffer())));
+        }
+
+        DetectionBuffer buffer() {
+            return buffers.getFirst();
+        }
+
+        void merge(GridTask other) {
+            buffers.addAll(other.buffers);
+        }
+    }
+
+    /**
+     * Steps of the scan held by one position cache, starting at firstStep. Steps before fromStep of the chunk were
+     * swept with the previous one. Runs left open by a chunk that is not the last are carried in openRuns by pair.
+     */
+    record Chunk(int firstStep, int steps, int fromStep, boolean last, Map<Integer, EventTracker.OpenRun> openRuns) {
+        static Chunk whole(int totalSteps) {
+            return new Chunk(0, totalSteps, 0, true, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Thread pools of the propagation and checking stages when chunks are pipelined.
+     */
+    private record Pipeline(ForkJoinPool propagationPool, ForkJoinPool checkPool) {
     }
 }
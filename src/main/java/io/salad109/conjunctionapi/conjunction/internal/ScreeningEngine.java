@@ -0,0 +1,13 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+public enum ScreeningEngine {
+    /**
+     * Reduce the catalog to candidate pairs with orbital geometry filters, then sweep each pair over time.
+     */
+    PAIR_LIST,
+    /**
+     * Bin every satellite into a uniform grid at each step and only compare neighbours. Screens the full catalog
+     * without materializing candidate pairs, the screening policy is applied to the detections.
+     */
+    SPATIAL_GRID
+}
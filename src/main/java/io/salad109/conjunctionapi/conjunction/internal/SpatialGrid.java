@@ -0,0 +1,133 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import java.util.Arrays;
+
+/**
+ * Uniform 3D grid over the positions of every satellite at one step, stored as an open-addressing hash of occupied
+ * cells with a linked list of satellites per cell. With the cell size at least the tolerance, two satellites within
+ * tolerance are always in the same or in neighbouring cells, so only those need a distance check.
+ * <p>
+ * Not thread-safe, each thread rebuilds its own grid for every step it screens.
+ */
+final class SpatialGrid {
+
+    // 21 bits per axis packed into one non-negative long, cells beyond the range are clamped to the edge
+    private static final int AXIS_BITS = 21;
+    private static final long AXIS_MAX = (1L << AXIS_BITS) - 1;
+    private static final long AXIS_OFFSET = 1L << (AXIS_BITS - 1);
+    private static final long EMPTY = -1;
+
+    // Half of the 26 neighbours, each neighbouring pair of cells is visited from exactly one side
+    private static final int[][] FORWARD_NEIGHBOURS = {
+            {1, -1, -1}, {1, -1, 0}, {1, -1, 1},
+            {1, 0, -1}, {1, 0, 0}, {1, 0, 1},
+            {1, 1, -1}, {1, 1, 0}, {1, 1, 1},
+            {0, 1, -1}, {0, 1, 0}, {0, 1, 1},
+            {0, 0, 1}
+    };
+
+    private final long[] slotKeys;
+    private final int[] slotHeads;
+    private final int[] occupiedSlots;
+    private final int[] next;
+    private final int mask;
+    private int occupiedCount;
+
+    SpatialGrid(int satelliteCount) {
+        int capacity = Integer.highestOneBit(Math.max(2, satelliteCount) * 2 - 1) << 1;
+        this.slotKeys = new long[capacity];
+        this.slotHeads = new int[capacity];
+        this.occupiedSlots = new int[satelliteCount];
+        this.next = new int[satelliteCount];
+        this.mask = capacity - 1;
+        Arrays.fill(slotKeys, EMPTY);
+    }
+
+    /**
+     * Bin every valid satellite position of a step into cells of cellSizeKm.
+     */
+    void build(PositionSource cache, int satelliteCount, int step, double cellSizeKm) {
+        for (int i = 0; i < occupiedCount; i++) {
+            slotKeys[occupiedSlots[i]] = EMPTY;
+        }
+        occupiedCount = 0;
+
+        double inverseCellSize = 1 / cellSizeKm;
+        for (int sat = 0; sat < satelliteCount; sat++) {
+            if (!cache.isValid(sat, step)) continue;
+            long key = cellKey(
+                    cellIndex(cache.x(sat, step) * inverseCellSize),
+                    cellIndex(cache.y(sat, step) * inverseCellSize),
+                    cellIndex(cache.z(sat, step) * inverseCellSize));
+
+            int slot = slotOf(key);
+            if (slotKeys[slot] == EMPTY) {
+                slotKeys[slot] = key;
+                slotHeads[slot] = -1;
+                occupiedSlots[occupiedCount++] = slot;
+            }
+            next[sat] = slotHeads[slot];
+            slotHeads[slot] = sat;
+        }
+    }
+
+    /**
+     * Report every pair of satellites in the same or neighbouring cells exactly once.
+     */
+    void forEachCandidatePair(PairConsumer consumer) {
+        for (int i = 0; i < occupiedCount; i++) {
+            int slot = occupiedSlots[i];
+            int head = slotHeads[slot];
+
+            for (int a = head; a >= 0; a = next[a]) {
+                for (int b = next[a]; b >= 0; b = next[b]) {
+                    consumer.accept(a, b);
+                }
+            }
+
+            long key = slotKeys[slot];
+            long cx = key >>> (2 * AXIS_BITS);
+            long cy = (key >>> AXIS_BITS) & AXIS_MAX;
+            long cz = key & AXIS_MAX;
+            for (int[] offset : FORWARD_NEIGHBOURS) {
+                long nx = cx + offset[0];
+                long ny = cy + offset[1];
+                long nz = cz + offset[2];
+                if (nx < 0 || ny < 0 || nz < 0 || nx > AXIS_MAX || ny > AXIS_MAX || nz > AXIS_MAX) continue;
+
+                int neighbourSlot = slotOf(cellKey(nx, ny, nz));
+                if (slotKeys[neighbourSlot] == EMPTY) continue;
+                for (int a = head; a >= 0; a = next[a]) {
+                    for (int b = slotHeads[neighbourSlot]; b >= 0; b = next[b]) {
+                        consumer.accept(a, b);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Slot holding the key, or the empty slot where it would be inserted.
+     */
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (slotKeys[slot] != EMPTY && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long cellIndex(double scaled) {
+        return Math.clamp((long) Math.floor(scaled) + AXIS_OFFSET, 0, AXIS_MAX);
+    }
+
+    private static long cellKey(long cx, long cy, long cz) {
+        return (cx << (2 * AXIS_BITS)) | (cy << AXIS_BITS) | cz;
+    }
+
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(int a, int b);
+    }
+}
@@ -0,0 +1,15 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+/**
+ * Whether the incubating Vector API can be used. Kept apart from the vector kernels, which cannot even be loaded
+ * without {@code --add-modules jdk.incubator.vector}, so checking never touches {@code jdk.incubator.vector}.
+ */
+final class VectorApi {
+
+    private VectorApi() {
+    }
+
+    static boolean isAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+}
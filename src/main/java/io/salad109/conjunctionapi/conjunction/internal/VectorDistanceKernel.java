@@ -0,0 +1,69 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Coarse-distance kernel built on the incubating Vector API. Computes squared distances for one pair across many
+ * steps per instruction and reports the steps under tolerance.
+ * Only touch this class after checking {@link VectorApi#isAvailable()}, since the JVM needs
+ * {@code --add-modules jdk.incubator.vector} to load it.
+ */
+final class VectorDistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorDistanceKernel() {
+    }
+
+    /**
+     * Report steps in [fromStep, toStep), in ascending order, where both satellites are valid and their squared
+     * distance is under tolSq. The cache must be step-contiguous. Invalid samples are NaN and never compare under
+     * tolerance, so no separate validity check is needed.
+     */
+    static void scan(HeapPositionCache cache, int a, int b, int fromStep, int toStep, double tolSq,
+                     ScanService.StepHitConsumer consumer) {
+        double[] positions = cache.positions();
+        int axis = cache.axisStride();
+        int offsetA = (int) cache.offset(a, 0);
+        int offsetB = (int) cache.offset(b, 0);
+
+        double[] lanes = new double[SPECIES.length()];
+        int step = fromStep;
+        int upperBound = fromStep + SPECIES.loopBound(toStep - fromStep);
+
+        for (; step < upperBound; step += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, positions, offsetA + step)
+                    .sub(DoubleVector.fromArray(SPECIES, positions, offsetB + step));
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, positions, offsetA + axis + step)
+                    .sub(DoubleVector.fromArray(SPECIES, positions, offsetB + axis + step));
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, positions, offsetA + 2 * axis + step)
+                    .sub(DoubleVector.fromArray(SPECIES, positions, offsetB + 2 * axis + step));
+            DoubleVector distSq = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+
+            VectorMask<Double> hit = distSq.compare(VectorOperators.LT, tolSq);
+            if (!hit.anyTrue()) continue;
+
+            distSq.intoArray(lanes, 0);
+            long bits = hit.toLong();
+            while (bits != 0) {
+                int lane = Long.numberOfTrailingZeros(bits);
+                consumer.accept(step + lane, lanes[lane]);
+                bits &= bits - 1;
+            }
+        }
+
+        // Scalar tail
+        for (; step < toStep; step++) {
+            double dx = positions[offsetA + step] - positions[offsetB + step];
+            double dy = positions[offsetA + axis + step] - positions[offsetB + axis + step];
+            double dz = positions[offsetA + 2 * axis + step] - positions[offsetB + 2 * axis + step];
+            double distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq < tolSq) {
+                consumer.accept(step, distSq);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static io.salad109.conjunctionapi.conjunction.internal.NativeSgp4.*;
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.CK2;
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.EARTH_RADIUS_KM;
+
+/**
+ * Near-Earth SGP4 positions for a block of satellites at once, one satellite per vector lane, built on the
+ * incubating Vector API. Same formula as {@link NativeSgp4#propagate}, which also handles the tail of the block.
+ * Kepler's equation is iterated until every lane has converged, lanes that converged early are masked off.
+ * Only touch this class after checking {@link VectorApi#isAvailable()}, since the JVM needs
+ * {@code --add-modules jdk.incubator.vector} to load it.
+ */
+final class VectorSgp4 {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorSgp4() {
+    }
+
+    /**
+     * Propagate every lane of a block (see {@link NativeSgp4#block}) to its own time, writing TEME positions in km
+     * to x, y and z. Lanes whose elements are no longer valid are written as NaN.
+     */
+    static void propagatePositions(NativeSgp4 block, double[] minutesSinceEpoch, double[] x, double[] y, double[] z) {
+        int lanes = block.size();
+        int upperBound = SPECIES.loopBound(lanes);
+        int lane = 0;
+        for (; lane < upperBound; lane += SPECIES.length()) {
+            propagateLanes(block, lane, minutesSinceEpoch, x, y, z);
+        }
+        block.propagatePositions(lane, lanes, minutesSinceEpoch, x, y, z);
+    }
+
+    private static void propagateLanes(NativeSgp4 block, int lane, double[] minutesSinceEpoch,
+                                       double[] x, double[] y, double[] z) {
+        DoubleVector t = DoubleVector.fromArray(SPECIES, minutesSinceEpoch, lane);
+
+        // Secular gravity and atmospheric drag
+        DoubleVector xmdf = load(block, M0, lane).add(load(block, XMDOT, lane).mul(t));
+        DoubleVector omgadf = load(block, ARGP0, lane).add(load(block, OMGDOT, lane).mul(t));
+        DoubleVector tsq = t.mul(t);
+        DoubleVector xnode = load(block, RAAN0, lane).add(load(block, XNODOT, lane).mul(t))
+                .add(load(block, XNODCF, lane).mul(tsq));
+        DoubleVector tcube = tsq.mul(t);
+        DoubleVector tfour = t.mul(tcube);
+
+        DoubleVector delomg = load(block, OMGCOF, lane).mul(t);
+        DoubleVector delm = load(block, ETA, lane).mul(xmdf.lanewise(VectorOperators.COS)).add(1.0);
+        delm = load(block, XMCOF, lane).mul(delm.mul(delm).mul(delm).sub(load(block, DELM0, lane)));
+        DoubleVector xmp = xmdf.add(delomg.add(delm));
+        DoubleVector omega = omgadf.sub(delomg.add(delm));
+        DoubleVector tempa = load(block, C1, lane).mul(t).neg().add(1.0)
+                .sub(load(block, D2, lane).mul(tsq))
+                .sub(load(block, D3, lane).mul(tcube))
+                .sub(load(block, D4, lane).mul(tfour));
+        DoubleVector bStar = load(block, BSTAR, lane);
+        DoubleVector tempe = bStar.mul(load(block, C4, lane)).mul(t)
+                .add(bStar.mul(load(block, C5, lane))
+                        .mul(xmp.lanewise(VectorOperators.SIN).sub(load(block, SINM0, lane))));
+        DoubleVector templ = load(block, T2COF, lane).mul(tsq)
+                .add(load(block, T3COF, lane).mul(tcube))
+                .add(tfour.mul(load(block, T4COF, lane).add(t.mul(load(block, T5COF, lane)))));
+
+        DoubleVector a = load(block, A0DP, lane).mul(tempa).mul(tempa);
+        DoubleVector e = load(block, E0, lane).sub(tempe).max(1e-6);
+        // NaN fails the comparison too
+        VectorMask<Double> valid = e.compare(VectorOperators.LE, 1 - 1e-6);
+        DoubleVector xl = xmp.add(omega).add(xnode).add(load(block, XN0DP, lane).mul(templ));
+
+        // Long period periodics
+        DoubleVector axn = e.mul(omega.lanewise(VectorOperators.COS));
+        DoubleVector temp = DoubleVector.broadcast(SPECIES, 1.0).div(a.mul(e.mul(e).neg().add(1.0)));
+        DoubleVector xlt = xl.add(temp.mul(load(block, XLCOF, lane)).mul(axn));
+        DoubleVector ayn = e.mul(omega.lanewise(VectorOperators.SIN)).add(temp.mul(load(block, AYCOF, lane)));
+        DoubleVector elsq = axn.mul(axn).add(ayn.mul(ayn));
+        DoubleVector capu = normalizeAngle(xlt.sub(xnode));
+
+        // Kepler's equation, first step clamped as in Orekit
+        DoubleVector epw = capu;
+        DoubleVector sinEpw = DoubleVector.zero(SPECIES);
+        DoubleVector cosEpw = DoubleVector.zero(SPECIES);
+        DoubleVector ecosE = DoubleVector.zero(SPECIES);
+        DoubleVector esinE = DoubleVector.zero(SPECIES);
+        VectorMask<Double> active = SPECIES.maskAll(true);
+        for (int j = 0; j < KEPLER_MAX_ITERATIONS && active.anyTrue(); j++) {
+            DoubleVector sinStep = epw.lanewise(VectorOperators.SIN);
+            DoubleVector cosStep = epw.lanewise(VectorOperators.COS);
+            sinEpw = sinEpw.blend(sinStep, active);
+            cosEpw = cosEpw.blend(cosStep, active);
+            ecosE = ecosE.blend(axn.mul(cosStep).add(ayn.mul(sinStep)), active);
+            esinE = esinE.blend(axn.mul(sinStep).sub(ayn.mul(cosStep)), active);
+
+            DoubleVector f = capu.sub(epw).add(esinE);
+            active = active.andNot(f.abs().compare(VectorOperators.LT, KEPLER_EPSILON));
+
+            DoubleVector fdot = ecosE.neg().add(1.0);
+            DoubleVector deltaEpw = f.div(fdot);
+            VectorMask<Double> secondOrder = SPECIES.maskAll(true);
+            if (j == 0) {
+                DoubleVector maxStep = e.abs().mul(1.25);
+                VectorMask<Double> above = deltaEpw.compare(VectorOperators.GT, maxStep);
+                VectorMask<Double> below = deltaEpw.compare(VectorOperators.LT, maxStep.neg());
+                secondOrder = above.or(below).not();
+                deltaEpw = deltaEpw.blend(maxStep, above).blend(maxStep.neg(), below);
+            }
+            deltaEpw = deltaEpw.blend(f.div(fdot.add(esinE.mul(0.5).mul(deltaEpw))), secondOrder);
+            epw = epw.add(deltaEpw, active);
+        }
+
+        // Short period preliminary quantities
+        DoubleVector cosi0 = load(block, COSI0, lane);
+        DoubleVector sini0 = load(block, SINI0, lane);
+        DoubleVector cosi0Sq = cosi0.mul(cosi0);
+        DoubleVector x3thm1 = cosi0Sq.mul(3.0).sub(1.0);
+        DoubleVector x1mth2 = cosi0Sq.neg().add(1.0);
+        DoubleVector x7thm1 = cosi0Sq.mul(7.0).sub(1.0);
+
+        DoubleVector oneMinusElsq = elsq.neg().add(1.0);
+        DoubleVector pl = a.mul(oneMinusElsq);
+        DoubleVector r = a.mul(ecosE.neg().add(1.0));
+        DoubleVector aOverR = a.div(r);
+        DoubleVector betal = oneMinusElsq.sqrt();
+        temp = esinE.div(betal.add(1.0));
+        DoubleVector cosu = aOverR.mul(cosEpw.sub(axn).add(ayn.mul(temp)));
+        DoubleVector sinu = aOverR.mul(sinEpw.sub(ayn).sub(axn.mul(temp)));
+        DoubleVector u = sinu.lanewise(VectorOperators.ATAN2, cosu);
+        DoubleVector sin2u = sinu.mul(cosu).mul(2.0);
+        DoubleVector cos2u = cosu.mul(cosu).mul(2.0).sub(1.0);
+        DoubleVector temp1 = DoubleVector.broadcast(SPECIES, CK2).div(pl);
+        DoubleVector temp2 = temp1.div(pl);
+
+        // Short periodics
+        DoubleVector rk = r.mul(temp2.mul(1.5).mul(betal).mul(x3thm1).neg().add(1.0))
+                .add(temp1.mul(0.5).mul(x1mth2).mul(cos2u));
+        DoubleVector uk = u.sub(temp2.mul(0.25).mul(x7thm1).mul(sin2u));
+        DoubleVector xnodek = xnode.add(temp2.mul(1.5).mul(cosi0).mul(sin2u));
+        DoubleVector xinck = load(block, I0, lane).add(temp2.mul(1.5).mul(cosi0).mul(sini0).mul(cos2u));
+
+        // Orientation vectors
+        DoubleVector sinuk = uk.lanewise(VectorOperators.SIN);
+        DoubleVector cosuk = uk.lanewise(VectorOperators.COS);
+        DoubleVector sinik = xinck.lanewise(VectorOperators.SIN);
+        DoubleVector cosik = xinck.lanewise(VectorOperators.COS);
+        DoubleVector sinnok = xnodek.lanewise(VectorOperators.SIN);
+        DoubleVector cosnok = xnodek.lanewise(VectorOperators.COS);
+        DoubleVector xmx = sinnok.neg().mul(cosik);
+        DoubleVector xmy = cosnok.mul(cosik);
+        DoubleVector ux = xmx.mul(sinuk).add(cosnok.mul(cosuk));
+        DoubleVector uy = xmy.mul(sinuk).add(sinnok.mul(cosuk));
+        DoubleVector uz = sinik.mul(sinuk);
+
+        DoubleVector radiusKm = rk.mul(EARTH_RADIUS_KM);
+        VectorMask<Double> invalid = valid.not();
+        radiusKm.mul(ux).blend(Double.NaN, invalid).intoArray(x, lane);
+        radiusKm.mul(uy).blend(Double.NaN, invalid).intoArray(y, lane);
+        radiusKm.mul(uz).blend(Double.NaN, invalid).intoArray(z, lane);
+    }
+
+    private static DoubleVector load(NativeSgp4 block, int coefficient, int lane) {
+        return DoubleVector.fromArray(SPECIES, block.column(coefficient), lane);
+    }
+
+    // Angle in [0, 2pi), floor through truncation corrected for negative quotients
+    private static DoubleVector normalizeAngle(DoubleVector angle) {
+        DoubleVector quotient = angle.div(TWO_PI);
+        DoubleVector truncated = (DoubleVector) quotient
+                .convert(VectorOperators.D2L, 0)
+                .convert(VectorOperators.L2D, 0);
+        DoubleVector floor = truncated.sub(1.0, quotient.compare(VectorOperators.LT, truncated));
+        return angle.sub(floor.mul(TWO_PI));
+    }
+}
@@ -0,0 +1,68 @@
+package io.salad109.conjunctionapi.satellite;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Candidate pairs packed as indices into the satellite list they were found in, one long per pair with the lower
+ * index in the high 32 bits. Entities are only looked up for the pairs that end up as events.
+ */
+public final class CandidatePairs {
+
+    private final List<Satellite> satellites;
+    private final long[] packed;
+
+    CandidatePairs(List<Satellite> satellites, long[] packed) {
+        this.satellites = satellites;
+        this.packed = packed;
+    }
+
+    static long pack(int first, int second) {
+        return ((long) first << 32) | second;
+    }
+
+    public int size() {
+        return packed.length;
+    }
+
+    /**
+     * List index of the first satellite of pair k.
+     */
+    public int first(int k) {
+        return (int) (packed[k] >>> 32);
+    }
+
+    /**
+     * List index of the second satellite of pair k.
+     */
+    public int second(int k) {
+        return (int) packed[k];
+    }
+
+    public List<Satellite> satellites() {
+        return satellites;
+    }
+
+    public SatellitePair pair(int k) {
+        return new SatellitePair(satellites.get(first(k)), satellites.get(second(k)));
+    }
+
+    /**
+     * NORAD IDs of the satellites that appear in at least one pair.
+     */
+    public Set<Integer> referencedNoradIds() {
+        boolean[] referenced = new boolean[satellites.size()];
+        for (int k = 0; k < packed.length; k++) {
+            referenced[first(k)] = true;
+            referenced[second(k)] = true;
+        }
+        Set<Integer> noradIds = new HashSet<>();
+        for (int i = 0; i < referenced.length; i++) {
+            if (referenced[i]) {
+                noradIds.add(satellites.get(i).getNoradCatId());
+            }
+        }
+        return noradIds;
+    }
+}
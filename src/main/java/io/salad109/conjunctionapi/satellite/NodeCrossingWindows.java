@@ -0,0 +1,390 @@
+package io.salad109.conjunctionapi.satellite;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.EARTH_RADIUS_KM;
+import static io.salad109.conjunctionapi.satellite.Sgp4Coefficients.MINUTES_PER_DAY;
+
+/**
+ * Time filter of pair reduction. Two objects can only be within a distance d of each other while each of them is
+ * within d of the other's orbital plane, which for an object at radius r means its argument of latitude is within
+ * asin(d / (r sin(I))) of the line of nodes between the planes, I being their relative inclination. Each object's
+ * elements over time follow the secular and drag terms of SGP4, from the same {@link Sgp4Coefficients} as the
+ * propagator: the J2 and J4 rates, the mean anomaly drag terms up to t⁵, delta omega and delta M, the node drag term
+ * and the decay of semi-major axis and eccentricity. Below 220 km perigee SGP4 keeps only the quadratic mean anomaly
+ * term and the linear decays, and so does this model. The pair's windows are where the crossing windows of both
+ * objects overlap.
+ * <p>
+ * Time is split into segments, within a segment the nodal line and the phase are taken at its midpoint. The
+ * half-width is widened by how far the line, the argument of perigee and the eccentricity move during the segment,
+ * and the windows are padded by how far the phase departs from its linearization at the ends of the segment. Only
+ * SGP4's periodic terms are left out, they move an object by a few km, well under a second along its orbit, and are
+ * covered by the fixed padding. Geometry that gives no useful bound (near coplanar orbits, small radii, decay faster
+ * than the segments can follow) keeps the whole segment, as do deep-space objects, whose lunisolar terms are not
+ * modelled. Arrays are indexed like the satellite list.
+ */
+final class NodeCrossingWindows {
+
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private static final double SEGMENT_SECONDS = 3600;
+    // Added to both ends of every window, covers the periodic terms left out
+    private static final double PAD_SECONDS = 30;
+    // Nodal line moving more than this within a segment is treated as undefined
+    private static final double MAX_NODE_DRIFT_RAD = 0.2;
+    // Windows per object per segment: two crossings per revolution, revolutions of at least 85 minutes
+    private static final int MAX_OBJECT_WINDOWS = 16;
+
+    private final boolean[] secular;
+    private final double[] epochOffsetSeconds;
+    private final double[] sinInclination;
+    private final double[] cosInclination;
+    private final double[] eccentricity;
+    private final double[] meanAnomaly;
+    private final double[] argPerigee;
+    private final double[] raan;
+    // SGP4 secular coefficients, time in minutes since epoch, zero where SGP4 drops the term
+    private final double[] a0dp;
+    private final double[] xn0dp;
+    private final double[] xmdot;
+    private final double[] omgdot;
+    private final double[] xnodot;
+    private final double[] xnodcf;
+    private final double[] t2cof;
+    private final double[] t3cof;
+    private final double[] t4cof;
+    private final double[] t5cof;
+    private final double[] omgcof;
+    private final double[] xmcof;
+    private final double[] eta;
+    private final double[] delM0;
+    private final double[] c1;
+    private final double[] d2;
+    private final double[] d3;
+    private final double[] d4;
+    // B* c4 and B* c5, the drag decay of the eccentricity
+    private final double[] bc4;
+    private final double[] bc5;
+
+    private NodeCrossingWindows(int size) {
+        this.secular = new boolean[size];
+        this.epochOffsetSeconds = new double[size];
+        this.sinInclination = new double[size];
+        this.cosInclination = new double[size];
+        this.eccentricity = new double[size];
+        this.meanAnomaly = new double[size];
+        this.argPerigee = new double[size];
+        this.raan = new double[size];
+        this.a0dp = new double[size];
+        this.xn0dp = new double[size];
+        this.xmdot = new double[size];
+        this.omgdot = new double[size];
+        this.xnodot = new double[size];
+        this.xnodcf = new double[size];
+        this.t2cof = new double[size];
+        this.t3cof = new double[size];
+        this.t4cof = new double[size];
+        this.t5cof = new double[size];
+        this.omgcof = new double[size];
+        this.xmcof = new double[size];
+        this.eta = new double[size];
+        this.delM0 = new double[size];
+        this.c1 = new double[size];
+        this.d2 = new double[size];
+        this.d3 = new double[size];
+        this.d4 = new double[size];
+        this.bc4 = new double[size];
+        this.bc5 = new double[size];
+    }
+
+    /**
+     * Secular elements of every satellite, with time in seconds from start.
+     */
+    static NodeCrossingWindows of(List<Satellite> satellites, OffsetDateTime start) {
+        NodeCrossingWindows windows = new NodeCrossingWindows(satellites.size());
+        for (int i = 0; i < satellites.size(); i++) {
+            windows.initialize(i, satellites.get(i), start);
+        }
+        return windows;
+    }
+
+    private void initialize(int i, Satellite sat, OffsetDateTime start) {
+        final double i0 = Math.toRadians(sat.getInclination());
+        sinInclination[i] = Math.sin(i0);
+        cosInclination[i] = Math.cos(i0);
+        eccentricity[i] = sat.getEccentricity();
+        epochOffsetSeconds[i] = Duration.between(start, sat.getEpoch()).toNanos() / 1e9;
+        meanAnomaly[i] = Math.toRadians(sat.getMeanAnomaly());
+        argPerigee[i] = Math.toRadians(sat.getArgPerigee());
+        raan[i] = Math.toRadians(sat.getRaan());
+
+        final Sgp4Coefficients sgp4 = Sgp4Coefficients.nearEarth(eccentricity[i], i0,
+                sat.getMeanMotion() * TWO_PI / MINUTES_PER_DAY, argPerigee[i], meanAnomaly[i], sat.getBstar());
+        // Deep space, SDP4 adds lunisolar terms
+        if (sgp4 == null) {
+            return;
+        }
+        secular[i] = true;
+        a0dp[i] = sgp4.a0dp();
+        xn0dp[i] = sgp4.xn0dp();
+        xmdot[i] = sgp4.xmdot();
+        omgdot[i] = sgp4.omgdot();
+        xnodot[i] = sgp4.xnodot();
+        xnodcf[i] = sgp4.xnodcf();
+        t2cof[i] = sgp4.t2cof();
+        t3cof[i] = sgp4.t3cof();
+        t4cof[i] = sgp4.t4cof();
+        t5cof[i] = sgp4.t5cof();
+        omgcof[i] = sgp4.omgcof();
+        xmcof[i] = sgp4.xmcof();
+        eta[i] = sgp4.eta();
+        delM0[i] = sgp4.delM0();
+        c1[i] = sgp4.c1();
+        d2[i] = sgp4.d2();
+        d3[i] = sgp4.d3();
+        d4[i] = sgp4.d4();
+        bc4[i] = sat.getBstar() * sgp4.c4();
+        bc5[i] = sat.getBstar() * sgp4.c5();
+    }
+
+    /**
+     * Windows of pair (a, b) over [0, windowSeconds), packed as start/end pairs in seconds from start.
+     */
+    double[] windows(int a, int b, double windowSeconds, double distanceKm) {
+        double[] windowsA = new double[2 * MAX_OBJECT_WINDOWS];
+        double[] windowsB = new double[2 * MAX_OBJECT_WINDOWS];
+        double[] bounds = new double[8];
+        int count = 0;
+
+        for (double t0 = 0; t0 < windowSeconds; t0 += SEGMENT_SECONDS) {
+            double t1 = Math.min(t0 + SEGMENT_SECONDS, windowSeconds);
+            int countA = -1;
+            int countB = -1;
+            if (secular[a] && secular[b]) {
+                double tm = 0.5 * (t0 + t1);
+                double[] alphaMid = nodeLine(a, b, tm);
+                double[] alphaStart = nodeLine(a, b, t0);
+                double[] alphaEnd = nodeLine(a, b, t1);
+                double sinRelInc = Math.min(alphaMid[2], Math.min(alphaStart[2], alphaEnd[2]));
+                double driftA = Math.max(angleBetween(alphaMid[0], alphaStart[0]), angleBetween(alphaMid[0], alphaEnd[0]));
+                double driftB = Math.max(angleBetween(alphaMid[1], alphaStart[1]), angleBetween(alphaMid[1], alphaEnd[1]));
+                if (driftA <= MAX_NODE_DRIFT_RAD && driftB <= MAX_NODE_DRIFT_RAD) {
+                    countA = crossingWindows(a, alphaMid[0], driftA, sinRelInc, distanceKm, t0, t1, windowsA);
+                    countB = crossingWindows(b, alphaMid[1], driftB, sinRelInc, distanceKm, t0, t1, windowsB);
+                }
+            }
+            if (countA < 0) countA = fullSegment(windowsA, t0, t1);
+            if (countB < 0) countB = fullSegment(windowsB, t0, t1);
+
+            // Both lists are sorted and disjoint, keep their overlaps
+            int i = 0;
+            int j = 0;
+            while (i < countA && j < countB) {
+                double from = Math.max(windowsA[2 * i], windowsB[2 * j]);
+                double to = Math.min(windowsA[2 * i + 1], windowsB[2 * j + 1]);
+                if (from < to) {
+                    if (count > 0 && from <= bounds[2 * count - 1]) {
+                        bounds[2 * count - 1] = Math.max(bounds[2 * count - 1], to);
+                    } else {
+                        if (2 * count == bounds.length) {
+                            bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+                        }
+                        bounds[2 * count] = from;
+                        bounds[2 * count + 1] = to;
+                        count++;
+                    }
+                }
+                if (windowsA[2 * i + 1] < windowsB[2 * j + 1]) i++;
+                else j++;
+            }
+        }
+        return Arrays.copyOf(bounds, 2 * count);
+    }
+
+    /**
+     * Argument of latitude of the line of nodes in the plane of a and of b, and the sine of the relative inclination.
+     */
+    private double[] nodeLine(int a, int b, double t) {
+        double deltaRaan = raanAt(a, t) - raanAt(b, t);
+        double sinDeltaRaan = Math.sin(deltaRaan);
+        double cosDeltaRaan = Math.cos(deltaRaan);
+        double xA = sinInclination[a] * cosInclination[b] - cosInclination[a] * sinInclination[b] * cosDeltaRaan;
+        double yA = sinInclination[b] * sinDeltaRaan;
+        double xB = sinInclination[b] * cosInclination[a] - cosInclination[b] * sinInclination[a] * cosDeltaRaan;
+        double yB = -sinInclination[a] * sinDeltaRaan;
+        return new double[]{Math.atan2(yA, xA), Math.atan2(yB, xB), Math.sqrt(xA * xA + yA * yA)};
+    }
+
+    /**
+     * Times in [t0, t1] when satellite s has its argument of latitude within the half-width of either crossing of the
+     * line of nodes at alpha, sorted and merged into out. Returns the number of windows, or -1 if the bound covers the
+     * whole orbit.
+     */
+    private int crossingWindows(int s, double alpha, double nodeDrift, double sinRelInc, double distanceKm,
+                                double t0, double t1, double[] out) {
+        // Perigee only drops under drag
+        double perigeeRadiusKm = Math.min(perigeeRadiusKm(s, t0), perigeeRadiusKm(s, t1));
+        double ratio = distanceKm / (perigeeRadiusKm * sinRelInc);
+        if (!(ratio < 1)) {
+            return -1;
+        }
+        double tm = 0.5 * (t0 + t1);
+        double omega = argPerigeeAt(s, tm);
+        double omegaDrift = Math.max(angleBetween(omega, argPerigeeAt(s, t0)), angleBetween(omega, argPerigeeAt(s, t1)));
+        // True anomaly moves by at most (2 + e) / (1 - e²) per unit of eccentricity change at fixed mean anomaly
+        double e = eccentricityAt(s, tm);
+        double eDrift = Math.max(Math.abs(eccentricityAt(s, t0) - e), Math.abs(eccentricityAt(s, t1) - e));
+        double halfWidth = Math.asin(ratio) + nodeDrift + omegaDrift + (2 + e) / (1 - e * e) * eDrift;
+        if (halfWidth >= 0.5 * Math.PI) {
+            return -1;
+        }
+
+        double phase = meanAnomalyAt(s, tm);
+        double rate = meanAnomalyRate(s, tm);
+        double period = TWO_PI / rate;
+        // Drag curves the phase away from its tangent, furthest at the ends of the segment
+        double curvature = Math.max(Math.abs(meanAnomalyAt(s, t0) - phase + rate * (tm - t0)),
+                Math.abs(meanAnomalyAt(s, t1) - phase - rate * (t1 - tm)));
+        double pad = PAD_SECONDS + curvature / rate;
+        if (!(pad < 0.25 * period)) {
+            return -1;
+        }
+
+        int count = 0;
+        for (int crossing = 0; crossing < 2; crossing++) {
+            double trueAnomaly = alpha + crossing * Math.PI - omega;
+            double from = meanAnomaly(trueAnomaly - halfWidth, e);
+            double length = positiveAngle(meanAnomaly(trueAnomaly + halfWidth, e) - from);
+            double start = tm + signedAngle(from - phase) / rate;
+            double end = start + length / rate;
+            // Earliest revolution still reaching into the segment
+            double k = Math.ceil((t0 - pad - end) / period);
+            for (; start + k * period - pad < t1; k++) {
+                if (count == MAX_OBJECT_WINDOWS) {
+                    return -1;
+                }
+                out[2 * count] = Math.max(t0, start + k * period - pad);
+                out[2 * count + 1] = Math.min(t1, end + k * period + pad);
+                count++;
+            }
+        }
+        return sortAndMerge(out, count);
+    }
+
+    /**
+     * Mean anomaly of satellite s at t seconds from start, SGP4's secular and drag terms.
+     */
+    private double meanAnomalyAt(int s, double t) {
+        double tsince = (t - epochOffsetSeconds[s]) / 60;
+        double tsince2 = tsince * tsince;
+        double templ = tsince2 * (t2cof[s] + tsince * (t3cof[s] + tsince * (t4cof[s] + tsince * t5cof[s])));
+        return meanAnomaly[s] + xmdot[s] * tsince + dragShift(s, tsince) + xn0dp[s] * templ;
+    }
+
+    /**
+     * Rate of the mean anomaly in radians per second, without the small periodic part of the delta M term.
+     */
+    private double meanAnomalyRate(int s, double t) {
+        double tsince = (t - epochOffsetSeconds[s]) / 60;
+        double templDot = tsince * (2 * t2cof[s] + tsince * (3 * t3cof[s] + tsince * (4 * t4cof[s]
+                + tsince * 5 * t5cof[s])));
+        return (xmdot[s] + omgcof[s] + xn0dp[s] * templDot) / 60;
+    }
+
+    private double argPerigeeAt(int s, double t) {
+        double tsince = (t - epochOffsetSeconds[s]) / 60;
+        return argPerigee[s] + omgdot[s] * tsince - dragShift(s, tsince);
+    }
+
+    /**
+     * Eccentricity of satellite s at t seconds from start, as decayed by SGP4's drag terms.
+     */
+    private double eccentricityAt(int s, double t) {
+        double tsince = (t - epochOffsetSeconds[s]) / 60;
+        double tempe = bc4[s] * tsince;
+        if (bc5[s] != 0) {
+            double mm = meanAnomaly[s] + xmdot[s] * tsince + dragShift(s, tsince);
+            tempe += bc5[s] * (Math.sin(mm) - Math.sin(meanAnomaly[s]));
+        }
+        return Math.clamp(eccentricity[s] - tempe, 1e-6, 0.999);
+    }
+
+    private double perigeeRadiusKm(int s, double t) {
+        double tsince = (t - epochOffsetSeconds[s]) / 60;
+        double tempa = 1 - tsince * (c1[s] + tsince * (d2[s] + tsince * (d3[s] + tsince * d4[s])));
+        if (!(tempa > 0)) {
+            // Decayed, SGP4 gives no position
+            return 0;
+        }
+        return a0dp[s] * tempa * tempa * (1 - eccentricityAt(s, t)) * EARTH_RADIUS_KM;
+    }
+
+    private double raanAt(int s, double t) {
+        double tsince = (t - epochOffsetSeconds[s]) / 60;
+        return raan[s] + tsince * (xnodot[s] + xnodcf[s] * tsince);
+    }
+
+    // Delta omega and delta M, moved from the argument of perigee to the mean anomaly
+    private double dragShift(int s, double tsince) {
+        if (xmcof[s] == 0) {
+            return omgcof[s] * tsince;
+        }
+        double delM = Math.pow(1.0 + eta[s] * Math.cos(meanAnomaly[s] + xmdot[s] * tsince), 3) - delM0[s];
+        return omgcof[s] * tsince + xmcof[s] * delM;
+    }
+
+    private static int fullSegment(double[] out, double t0, double t1) {
+        out[0] = t0;
+        out[1] = t1;
+        return 1;
+    }
+
+    // Insertion sort by start, the lists hold a handful of windows
+    private static int sortAndMerge(double[] windows, int count) {
+        for (int i = 1; i < count; i++) {
+            double from = windows[2 * i];
+            double to = windows[2 * i + 1];
+            int j = i - 1;
+            for (; j >= 0 && windows[2 * j] > from; j--) {
+                windows[2 * j + 2] = windows[2 * j];
+                windows[2 * j + 3] = windows[2 * j + 1];
+            }
+            windows[2 * j + 2] = from;
+            windows[2 * j + 3] = to;
+        }
+        int merged = 0;
+        for (int i = 0; i < count; i++) {
+            if (merged > 0 && windows[2 * i] <= windows[2 * merged - 1]) {
+                windows[2 * merged - 1] = Math.max(windows[2 * merged - 1], windows[2 * i + 1]);
+            } else {
+                windows[2 * merged] = windows[2 * i];
+                windows[2 * merged + 1] = windows[2 * i + 1];
+                merged++;
+            }
+        }
+        return merged;
+    }
+
+    private static double meanAnomaly(double trueAnomaly, double e) {
+        double eccentricAnomaly = Math.atan2(Math.sqrt(1 - e * e) * Math.sin(trueAnomaly), e + Math.cos(trueAnomaly));
+        return eccentricAnomaly - e * Math.sin(eccentricAnomaly);
+    }
+
+    // Angle in [0, 2pi)
+    private static double positiveAngle(double angle) {
+        double wrapped = angle % TWO_PI;
+        return wrapped < 0 ? wrapped + TWO_PI : wrapped;
+    }
+
+    // Angle in [-pi, pi)
+    private static double signedAngle(double angle) {
+        return positiveAngle(angle + Math.PI) - Math.PI;
+    }
+
+    private static double angleBetween(double first, double second) {
+        return Math.abs(signedAngle(first - second));
+    }
+}
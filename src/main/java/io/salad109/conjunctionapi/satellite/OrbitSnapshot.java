@@ -0,0 +1,64 @@
+package io.salad109.conjunctionapi.satellite;
+
+import java.util.List;
+
+/**
+ * Per-satellite orbital quantities used by pair reduction, computed once per search instead of once per pair.
+ * Arrays are indexed like the satellite list the snapshot was taken from.
+ */
+final class OrbitSnapshot {
+
+    final double[] perigeeKm;
+    final double[] apogeeKm;
+    final boolean[] payload;
+    final boolean[] debris;
+    final double[] sinInclination;
+    final double[] cosInclination;
+    final double[] sinRaan;
+    final double[] cosRaan;
+    final double[] sinArgPerigee;
+    final double[] cosArgPerigee;
+    final double[] eccentricity;
+    // p = a(1 - e²), orbital radius at true anomaly nu is p / (1 + e cos nu)
+    final double[] semiLatusRectumKm;
+
+    private OrbitSnapshot(int size) {
+        this.perigeeKm = new double[size];
+        this.apogeeKm = new double[size];
+        this.payload = new boolean[size];
+        this.debris = new boolean[size];
+        this.sinInclination = new double[size];
+        this.cosInclination = new double[size];
+        this.sinRaan = new double[size];
+        this.cosRaan = new double[size];
+        this.sinArgPerigee = new double[size];
+        this.cosArgPerigee = new double[size];
+        this.eccentricity = new double[size];
+        this.semiLatusRectumKm = new double[size];
+    }
+
+    static OrbitSnapshot of(List<Satellite> satellites) {
+        OrbitSnapshot snapshot = new OrbitSnapshot(satellites.size());
+        for (int i = 0; i < satellites.size(); i++) {
+            Satellite sat = satellites.get(i);
+            double inclination = Math.toRadians(sat.getInclination());
+            double raan = Math.toRadians(sat.getRaan());
+            double argPerigee = Math.toRadians(sat.getArgPerigee());
+            double e = sat.getEccentricity();
+
+            snapshot.perigeeKm[i] = sat.getPerigeeKm();
+            snapshot.apogeeKm[i] = sat.getApogeeKm();
+            snapshot.payload[i] = ScreeningPolicy.isPayload(sat);
+            snapshot.debris[i] = ScreeningPolicy.isDebris(sat);
+            snapshot.sinInclination[i] = Math.sin(inclination);
+            snapshot.cosInclination[i] = Math.cos(inclination);
+            snapshot.sinRaan[i] = Math.sin(raan);
+            snapshot.cosRaan[i] = Math.cos(raan);
+            snapshot.sinArgPerigee[i] = Math.sin(argPerigee);
+            snapshot.cosArgPerigee[i] = Math.cos(argPerigee);
+            snapshot.eccentricity[i] = e;
+            snapshot.semiLatusRectumKm[i] = sat.getSemiMajorAxisKm() * (1 - e * e);
+        }
+        return snapshot;
+    }
+}
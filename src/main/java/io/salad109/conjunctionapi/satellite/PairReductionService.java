@@ -4,8 +4,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
 import java.util.stream.IntStream;
 
 @Service
@@ -13,30 +19,161 @@ public class PairReductionService {
 
     private static final Logger log = LoggerFactory.getLogger(PairReductionService.class);
 
+    // Relative inclination under 0.1 degrees, compared on the cosine
+    private static final double COS_COPLANAR = Math.cos(Math.toRadians(0.1));
+
     /**
      * Finds all pairs of satellites that could potentially collide.
      * Uses orbital geometry filters to reduce the number of pairs for detailed analysis.
      */
-    public List<SatellitePair> findPotentialCollisionPairs(List<Satellite> satellites, double toleranceKm) {
+    public CandidatePairs findPotentialCollisionPairs(List<Satellite> satellites, double toleranceKm,
+                                                      ScreeningPolicy policy) {
+        return findPotentialCollisionPairs(satellites, toleranceKm, policy, Long.MAX_VALUE).orElseThrow();
+    }
+
+    /**
+     * Finds all pairs of satellites that could potentially collide, or nothing if there are more than maxPairs of
+     * them. The search stops soon after passing maxPairs, so memory stays bounded when the policy lets debris in.
+     * <p>
+     * Satellites are swept in ascending perigee order, so each one is only tested against the satellites whose perigee
+     * lies between its own and its apogee plus tolerance, the only ones whose altitude shell can overlap its own.
+     * Pairs keep the orientation of the list, the lower index first.
+     */
+    public Optional<CandidatePairs> findPotentialCollisionPairs(List<Satellite> satellites, double toleranceKm,
+                                                                ScreeningPolicy policy, long maxPairs) {
+        long startMs = System.currentTimeMillis();
+        Optional<CandidatePairs> pairs = sweepByPerigee(satellites, null, toleranceKm, policy, maxPairs);
+        if (pairs.isEmpty()) {
+            log.debug("Stopped pair search past {} potential collision pairs after {}ms",
+                    maxPairs, System.currentTimeMillis() - startMs);
+        } else {
+            log.debug("Found {} potential collision pairs in {}ms",
+                    pairs.get().size(), System.currentTimeMillis() - startMs);
+        }
+        return pairs;
+    }
+
+    /**
+     * Finds all pairs of satellites that could potentially collide and involve at least one of the changed satellites.
+     */
+    public CandidatePairs findPotentialCollisionPairs(List<Satellite> satellites, Set<Integer> changedNoradIds,
+                                                      double toleranceKm, ScreeningPolicy policy) {
+        return findPotentialCollisionPairs(satellites, changedNoradIds, toleranceKm, policy, Long.MAX_VALUE)
+                .orElseThrow();
+    }
+
+    /**
+     * Finds all pairs of satellites that could potentially collide and involve at least one of the changed satellites,
+     * or nothing if there are more than maxPairs of them, with the same perigee sweep as the full search. An unchanged
+     * satellite is only tested against the changed ones in its reach, so the cost falls with the number of changed
+     * satellites. Pairs keep the orientation of the full search.
+     */
+    public Optional<CandidatePairs> findPotentialCollisionPairs(List<Satellite> satellites,
+                                                                Set<Integer> changedNoradIds, double toleranceKm,
+                                                                ScreeningPolicy policy, long maxPairs) {
         long startMs = System.currentTimeMillis();
+        boolean[] changed = new boolean[satellites.size()];
+        for (int i = 0; i < satellites.size(); i++) {
+            changed[i] = changedNoradIds.contains(satellites.get(i).getNoradCatId());
+        }
+
+        Optional<CandidatePairs> pairs = sweepByPerigee(satellites, changed, toleranceKm, policy, maxPairs);
+        if (pairs.isEmpty()) {
+            log.debug("Stopped pair search for {} changed satellites past {} potential collision pairs after {}ms",
+                    changedNoradIds.size(), maxPairs, System.currentTimeMillis() - startMs);
+        } else {
+            log.debug("Found {} potential collision pairs for {} changed satellites in {}ms",
+                    pairs.get().size(), changedNoradIds.size(), System.currentTimeMillis() - startMs);
+        }
+        return pairs;
+    }
+
+    /**
+     * Pairs found by sweeping the satellites in perigee order, each pair from the member with the lower perigee. With
+     * a changed mask, only pairs with a changed member are kept: a changed satellite sweeps every satellite in its
+     * reach, an unchanged one only the changed satellites in it. Nothing if there are more than maxPairs pairs.
+     */
+    private Optional<CandidatePairs> sweepByPerigee(List<Satellite> satellites, boolean[] changed, double toleranceKm,
+                                                    ScreeningPolicy policy, long maxPairs) {
         int satelliteCount = satellites.size();
+        OrbitSnapshot orbits = OrbitSnapshot.of(satellites);
 
-        List<SatellitePair> pairs = IntStream.range(0, satelliteCount)
+        Integer[] order = IntStream.range(0, satelliteCount).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparingDouble(i -> orbits.perigeeKm[i]));
+        int[] byPerigee = new int[satelliteCount];
+        double[] sortedPerigees = new double[satelliteCount];
+        for (int p = 0; p < satelliteCount; p++) {
+            byPerigee[p] = order[p];
+            sortedPerigees[p] = orbits.perigeeKm[order[p]];
+        }
+        // Perigee ranks of the changed satellites, ascending
+        int[] changedRanks = changed == null ? null
+                : IntStream.range(0, satelliteCount).filter(p -> changed[byPerigee[p]]).toArray();
+
+        LongAdder found = new LongAdder();
+        long[] pairs = IntStream.range(0, satelliteCount)
                 .parallel()
                 .boxed()
-                .mapMulti((Integer i, Consumer<SatellitePair> consumer) -> {
-                    Satellite a = satellites.get(i);
-                    for (int j = i + 1; j < satelliteCount; j++) {
-                        Satellite b = satellites.get(j);
-                        if (canCollide(a, b, toleranceKm)) {
-                            consumer.accept(new SatellitePair(a, b));
+                .mapMultiToLong((Integer p, LongConsumer consumer) -> {
+                    if (found.sum() > maxPairs) return;
+                    int i = byPerigee[p];
+                    double reachKm = orbits.apogeeKm[i] + toleranceKm;
+                    boolean sweepsAll = changed == null || changed[i];
+                    // An unchanged satellite is never among the changed ranks, so the search gives its insertion point
+                    int from = sweepsAll ? p + 1 : -Arrays.binarySearch(changedRanks, p) - 1;
+                    int to = sweepsAll ? satelliteCount : changedRanks.length;
+                    int count = 0;
+                    for (int c = from; c < to; c++) {
+                        int q = sweepsAll ? c : changedRanks[c];
+                        if (sortedPerigees[q] > reachKm) break;
+                        int j = byPerigee[q];
+                        int a = Math.min(i, j);
+                        int b = Math.max(i, j);
+                        if (canCollide(orbits, a, b, toleranceKm, policy)) {
+                            consumer.accept(CandidatePairs.pack(a, b));
+                            count++;
                         }
                     }
+                    found.add(count);
                 })
-                .toList();
+                .toArray();
 
-        log.debug("Found {} potential collision pairs in {}ms", pairs.size(), System.currentTimeMillis() - startMs);
-        return pairs;
+        if (pairs.length > maxPairs) {
+            return Optional.empty();
+        }
+        return Optional.of(new CandidatePairs(satellites, pairs));
+    }
+
+    /**
+     * Time filter for pairs that passed the orbit filters: the windows of [0, windowSeconds) after start in which both
+     * satellites of a pair are close enough to the line of nodes between their planes to come within distanceKm of
+     * each other. See {@link NodeCrossingWindows}, distanceKm should include a margin for what the secular model leaves
+     * out.
+     */
+    public PairTimeWindows findTimeWindows(CandidatePairs pairs, OffsetDateTime start, double windowSeconds,
+                                           double distanceKm) {
+        long startMs = System.currentTimeMillis();
+        NodeCrossingWindows crossings = NodeCrossingWindows.of(pairs.satellites(), start);
+
+        double[][] windowsByPair = new double[pairs.size()][];
+        IntStream.range(0, pairs.size())
+                .parallel()
+                .forEach(k -> windowsByPair[k] = crossings.windows(pairs.first(k), pairs.second(k),
+                        windowSeconds, distanceKm));
+
+        int[] offsets = new int[pairs.size() + 1];
+        for (int k = 0; k < pairs.size(); k++) {
+            offsets[k + 1] = offsets[k] + windowsByPair[k].length / 2;
+        }
+        double[] bounds = new double[2 * offsets[pairs.size()]];
+        for (int k = 0; k < pairs.size(); k++) {
+            System.arraycopy(windowsByPair[k], 0, bounds, 2 * offsets[k], windowsByPair[k].length);
+        }
+
+        PairTimeWindows windows = new PairTimeWindows(offsets, bounds);
+        log.debug("Time filter kept {} of {} pair-seconds in {}ms", (long) windows.totalSeconds(),
+                (long) (pairs.size() * windowSeconds), System.currentTimeMillis() - startMs);
+        return windows;
     }
 
     /**
@@ -50,6 +187,54 @@ public class PairReductionService {
                 orbitalPlanesIntersect(a, b, toleranceKm);
     }
 
+    /**
+     * Same filters as {@link #canCollide(Satellite, Satellite, double)} on a snapshot, a and b being list indices,
+     * with the object types screened decided by the policy.
+     * The plane test needs no trigonometry per pair: the crossing points are found from the direction of the line of
+     * nodes, and only the cosine of their true anomaly enters the orbital radius.
+     */
+    private boolean canCollide(OrbitSnapshot orbits, int a, int b, double toleranceKm, ScreeningPolicy policy) {
+        if (orbits.apogeeKm[a] + toleranceKm < orbits.perigeeKm[b]
+                || orbits.apogeeKm[b] + toleranceKm < orbits.perigeeKm[a]) {
+            return false;
+        }
+        if (!policy.screens(orbits.payload[a], orbits.debris[a], orbits.payload[b], orbits.debris[b])) {
+            return false;
+        }
+
+        double sinIA = orbits.sinInclination[a];
+        double cosIA = orbits.cosInclination[a];
+        double sinIB = orbits.sinInclination[b];
+        double cosIB = orbits.cosInclination[b];
+        double sinDeltaRaan = orbits.sinRaan[a] * orbits.cosRaan[b] - orbits.cosRaan[a] * orbits.sinRaan[b];
+        double cosDeltaRaan = orbits.cosRaan[a] * orbits.cosRaan[b] + orbits.sinRaan[a] * orbits.sinRaan[b];
+
+        // Coplanar orbits can intersect anywhere
+        double cosRelInc = cosIA * cosIB + sinIA * sinIB * cosDeltaRaan;
+        if (cosRelInc > COS_COPLANAR) {
+            return true;
+        }
+
+        // Line of nodes between the planes, as (cos, sin) of its argument of latitude in each plane, unnormalized
+        double xA = sinIA * cosIB - cosIA * sinIB * cosDeltaRaan;
+        double yA = sinIB * sinDeltaRaan;
+        double xB = sinIB * cosIA - cosIB * sinIA * cosDeltaRaan;
+        double yB = -sinIA * sinDeltaRaan;
+
+        // cos(alpha - omega) at one crossing, the other crossing is half an orbit later and has the opposite sign
+        double cosNuA = (xA * orbits.cosArgPerigee[a] + yA * orbits.sinArgPerigee[a]) / Math.sqrt(xA * xA + yA * yA);
+        double cosNuB = (xB * orbits.cosArgPerigee[b] + yB * orbits.sinArgPerigee[b]) / Math.sqrt(xB * xB + yB * yB);
+
+        double rA1 = orbits.semiLatusRectumKm[a] / (1 + orbits.eccentricity[a] * cosNuA);
+        double rA2 = orbits.semiLatusRectumKm[a] / (1 - orbits.eccentricity[a] * cosNuA);
+        double rB1 = orbits.semiLatusRectumKm[b] / (1 + orbits.eccentricity[b] * cosNuB);
+        double rB2 = orbits.semiLatusRectumKm[b] / (1 - orbits.eccentricity[b] * cosNuB);
+
+        double minDiff = Math.min(Math.min(Math.abs(rA1 - rB1), Math.abs(rA1 - rB2)),
+                Math.min(Math.abs(rA2 - rB1), Math.abs(rA2 - rB2)));
+        return minDiff <= toleranceKm;
+    }
+
     public boolean altitudeShellsOverlap(Satellite a, Satellite b, double toleranceKm) {
         double perigeeA = a.getPerigeeKm();
         double apogeeA = a.getApogeeKm();
@@ -59,7 +244,7 @@ public class PairReductionService {
     }
 
     public boolean neitherAreDebris(Satellite a, Satellite b) {
-        return !"DEBRIS".equals(a.getObjectType()) && !"DEBRIS".equals(b.getObjectType());
+        return ScreeningPolicy.EXCLUDE_DEBRIS.screens(a, b);
     }
 
     public boolean orbitalPlanesIntersect(Satellite a, Satellite b, double toleranceKm) {
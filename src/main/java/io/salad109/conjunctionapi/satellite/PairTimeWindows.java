@@ -0,0 +1,41 @@
+package io.salad109.conjunctionapi.satellite;
+
+/**
+ * Time windows per candidate pair, in seconds from the start of the screened interval. Outside its windows a pair
+ * cannot come within the tolerance it was computed for. Windows of a pair are sorted and disjoint, a pair without
+ * windows needs no screening at all.
+ */
+public final class PairTimeWindows {
+
+    // Windows of pair k are [bounds[2i], bounds[2i + 1]) for i in [offsets[k], offsets[k + 1])
+    private final int[] offsets;
+    private final double[] bounds;
+
+    PairTimeWindows(int[] offsets, double[] bounds) {
+        this.offsets = offsets;
+        this.bounds = bounds;
+    }
+
+    public int windowCount(int pair) {
+        return offsets[pair + 1] - offsets[pair];
+    }
+
+    public double start(int pair, int window) {
+        return bounds[2 * (offsets[pair] + window)];
+    }
+
+    public double end(int pair, int window) {
+        return bounds[2 * (offsets[pair] + window) + 1];
+    }
+
+    /**
+     * Sum of the window lengths over all pairs, in seconds.
+     */
+    public double totalSeconds() {
+        double total = 0;
+        for (int i = 0; i < bounds.length; i += 2) {
+            total += bounds[i + 1] - bounds[i];
+        }
+        return total;
+    }
+}
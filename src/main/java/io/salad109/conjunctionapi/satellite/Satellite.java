@@ -122,6 +122,14 @@ public class Satellite {
         this.orbitalPeriodMin = 1440.0 / meanMotion;
     }
 
+    /**
+     * Upper bound of the orbital speed in km/s, reached at perigee (vis-viva equation).
+     */
+    public double maxSpeedKmS() {
+        double perigeeRadiusKm = perigeeKm + EARTH_RADIUS_KM;
+        return Math.sqrt(MU * (2 / perigeeRadiusKm - 1 / semiMajorAxisKm));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
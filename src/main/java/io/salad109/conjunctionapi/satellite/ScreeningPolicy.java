@@ -0,0 +1,42 @@
+package io.salad109.conjunctionapi.satellite;
+
+/**
+ * Which pairs of object types are screened at all, applied before any orbital geometry.
+ */
+public enum ScreeningPolicy {
+    /**
+     * Pairs where neither object is debris.
+     */
+    EXCLUDE_DEBRIS,
+    /**
+     * Pairs with at least one payload, the other object can be of any type, debris included.
+     */
+    PAYLOAD_VS_ALL,
+    /**
+     * Every pair, debris on debris included.
+     */
+    ALL;
+
+    public boolean screens(Satellite a, Satellite b) {
+        return screens(isPayload(a), isDebris(a), isPayload(b), isDebris(b));
+    }
+
+    /**
+     * Same as {@link #screens(Satellite, Satellite)} on object types classified once up front, for per-pair loops.
+     */
+    public boolean screens(boolean payloadA, boolean debrisA, boolean payloadB, boolean debrisB) {
+        return switch (this) {
+            case EXCLUDE_DEBRIS -> !debrisA && !debrisB;
+            case PAYLOAD_VS_ALL -> payloadA || payloadB;
+            case ALL -> true;
+        };
+    }
+
+    public static boolean isPayload(Satellite satellite) {
+        return "PAYLOAD".equals(satellite.getObjectType());
+    }
+
+    public static boolean isDebris(Satellite satellite) {
+        return "DEBRIS".equals(satellite.getObjectType());
+    }
+}
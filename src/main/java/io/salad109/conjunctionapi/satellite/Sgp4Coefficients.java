@@ -0,0 +1,126 @@
+package io.salad109.conjunctionapi.satellite;
+
+/**
+ * SGP4 initialization of a near-Earth satellite: the recovered mean motion and semi-major axis, the secular J2 and J4
+ * rates and the atmospheric drag coefficients, with time in minutes and distances in earth radii. Shared by the
+ * propagator and the node-crossing time filter, so both follow the same elements over time.
+ * <p>
+ * The WGS72 constants and formulation are the ones of Orekit's TLEPropagator and SGP4. Below 220 km perigee SGP4
+ * drops the c3, c5, delta omega, delta M and higher order mean anomaly terms, their coefficients are zero here.
+ */
+public record Sgp4Coefficients(double a0dp, double xn0dp, double eta, double xmdot, double omgdot, double xnodot,
+                               double xnodcf, double c1, double c4, double c5, double d2, double d3, double d4,
+                               double t2cof, double t3cof, double t4cof, double t5cof, double omgcof, double xmcof,
+                               double delM0) {
+
+    // WGS72 constants used by the TLE theory
+    public static final double EARTH_RADIUS_KM = 6378.135;
+    public static final double XKE = 0.0743669161331734132;
+    public static final double CK2 = 0.5 * 1.082616e-3;
+    public static final double A3OVK2 = 2.53881e-6 / CK2;
+    public static final double MINUTES_PER_DAY = 1440.0;
+    private static final double CK4 = -0.375 * -1.65597e-6;
+    private static final double S = 1.0 + 78.0 / EARTH_RADIUS_KM;
+    private static final double QOMS2T = 1.880279159015270643865e-9;
+
+    /**
+     * Initialize from mean elements at epoch, angles in radians and the Kozai mean motion in radians per minute.
+     * Returns null for deep-space satellites (period of 225 minutes or more), which need SDP4's lunisolar terms.
+     */
+    public static Sgp4Coefficients nearEarth(double e0, double i0, double meanMotion, double argPerigee,
+                                             double meanAnomaly, double bStar) {
+        // Recover the original mean motion and semi-major axis from the Kozai mean motion
+        final double a1 = Math.pow(XKE / meanMotion, 2.0 / 3.0);
+        final double cosi0 = Math.cos(i0);
+        final double theta2 = cosi0 * cosi0;
+        final double x3thm1 = 3.0 * theta2 - 1.0;
+        final double e0sq = e0 * e0;
+        final double beta02 = 1.0 - e0sq;
+        final double beta0 = Math.sqrt(beta02);
+        final double tval = CK2 * 1.5 * x3thm1 / (beta0 * beta02);
+        final double delta1 = tval / (a1 * a1);
+        final double a0 = a1 * (1.0 - delta1 * (1.0 / 3.0 + delta1 * (1.0 + 134.0 / 81.0 * delta1)));
+        final double delta0 = tval / (a0 * a0);
+        final double xn0dp = meanMotion / (delta0 + 1.0);
+        final double a0dp = a0 / (1.0 - delta0);
+
+        if (2 * Math.PI / (xn0dp * MINUTES_PER_DAY) >= 1.0 / 6.4) {
+            return null;
+        }
+
+        // Perigee below 156 km changes s and qoms2t
+        double s4 = S;
+        double q0ms24 = QOMS2T;
+        final double perigee = (a0dp * (1 - e0) - 1.0) * EARTH_RADIUS_KM;
+        if (perigee < 156.0) {
+            s4 = perigee <= 98.0 ? 20.0 : perigee - 78.0;
+            final double tempVal = (120.0 - s4) / EARTH_RADIUS_KM;
+            final double tempValSquared = tempVal * tempVal;
+            q0ms24 = tempValSquared * tempValSquared;
+            s4 = s4 / EARTH_RADIUS_KM + 1.0;
+        }
+
+        final double pinv = 1.0 / (a0dp * beta02);
+        final double pinvsq = pinv * pinv;
+        final double tsi = 1.0 / (a0dp - s4);
+        final double eta = a0dp * e0 * tsi;
+        final double etasq = eta * eta;
+        final double eeta = e0 * eta;
+        final double psisq = Math.abs(1.0 - etasq);
+        final double tsiSquared = tsi * tsi;
+        final double coef = q0ms24 * tsiSquared * tsiSquared;
+        final double coef1 = coef / Math.pow(psisq, 3.5);
+
+        final double c2 = coef1 * xn0dp * (a0dp * (1.0 + 1.5 * etasq + eeta * (4.0 + etasq))
+                + 0.75 * CK2 * tsi / psisq * x3thm1 * (8.0 + 3.0 * etasq * (8.0 + etasq)));
+        final double c1 = bStar * c2;
+        final double x1mth2 = 1.0 - theta2;
+
+        final double c4 = 2.0 * xn0dp * coef1 * a0dp * beta02 * (eta * (2.0 + 0.5 * etasq)
+                + e0 * (0.5 + 2.0 * etasq)
+                - 2 * CK2 * tsi / (a0dp * psisq)
+                * (-3.0 * x3thm1 * (1.0 - 2.0 * eeta + etasq * (1.5 - 0.5 * eeta))
+                + 0.75 * x1mth2 * (2.0 * etasq - eeta * (1.0 + etasq)) * Math.cos(2.0 * argPerigee)));
+
+        final double theta4 = theta2 * theta2;
+        final double temp1 = 3 * CK2 * pinvsq * xn0dp;
+        final double temp2 = temp1 * CK2 * pinvsq;
+        final double temp3 = 1.25 * CK4 * pinvsq * pinvsq * xn0dp;
+
+        final double xmdot = xn0dp + 0.5 * temp1 * beta0 * x3thm1
+                + 0.0625 * temp2 * beta0 * (13.0 - 78.0 * theta2 + 137.0 * theta4);
+        final double x1m5th = 1.0 - 5.0 * theta2;
+        final double omgdot = -0.5 * temp1 * x1m5th
+                + 0.0625 * temp2 * (7.0 - 114.0 * theta2 + 395.0 * theta4)
+                + temp3 * (3.0 - 36.0 * theta2 + 49.0 * theta4);
+        final double xhdot1 = -temp1 * cosi0;
+        final double xnodot = xhdot1 + (0.5 * temp2 * (4.0 - 19.0 * theta2) + 2.0 * temp3 * (3.0 - 7.0 * theta2)) * cosi0;
+        final double xnodcf = 3.5 * beta02 * xhdot1 * c1;
+
+        if (perigee < 220) {
+            return new Sgp4Coefficients(a0dp, xn0dp, eta, xmdot, omgdot, xnodot, xnodcf, c1, c4, 0, 0, 0, 0,
+                    1.5 * c1, 0, 0, 0, 0, 0, 0);
+        }
+
+        final double c1sq = c1 * c1;
+        double delM0 = 1.0 + eta * Math.cos(meanAnomaly);
+        delM0 *= delM0 * delM0;
+        final double d2 = 4 * a0dp * tsi * c1sq;
+        final double temp = d2 * tsi * c1 / 3.0;
+        final double d3 = (17 * a0dp + s4) * temp;
+        final double d4 = 0.5 * temp * a0dp * tsi * (221 * a0dp + 31 * s4) * c1;
+        final double c5 = 2 * coef1 * a0dp * beta02 * (1 + 2.75 * (etasq + eeta) + eeta * etasq);
+        final double t3cof = d2 + 2 * c1sq;
+        final double t4cof = 0.25 * (3 * d3 + c1 * (12 * d2 + 10 * c1sq));
+        final double t5cof = 0.2 * (3 * d4 + 12 * c1 * d3 + 6 * d2 * d2 + 15 * c1sq * (2 * d2 + c1sq));
+        double xmcof = 0;
+        double omgcof = 0;
+        if (e0 >= 1e-4) {
+            final double c3 = coef * tsi * A3OVK2 * xn0dp * Math.sin(i0) / e0;
+            xmcof = -2.0 / 3.0 * coef * bStar / eeta;
+            omgcof = bStar * c3 * Math.cos(argPerigee);
+        }
+        return new Sgp4Coefficients(a0dp, xn0dp, eta, xmdot, omgdot, xnodot, xnodcf, c1, c4, c5, d2, d3, d4,
+                1.5 * c1, t3cof, t4cof, t5cof, omgcof, xmcof, delM0);
+    }
+}
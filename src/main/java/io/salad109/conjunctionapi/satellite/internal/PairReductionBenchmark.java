@@ -2,6 +2,7 @@ package io.salad109.conjunctionapi.satellite.internal;
 
 import io.salad109.conjunctionapi.satellite.PairReductionService;
 import io.salad109.conjunctionapi.satellite.Satellite;
+import io.salad109.conjunctionapi.satellite.ScreeningPolicy;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,7 +80,37 @@ public class PairReductionBenchmark implements CommandLineRunner {
                 (a, b) -> pairReductionService.canCollide(a, b, DEFAULT_TOLERANCE_KM)
         );
 
-        printResultsTable(totalPairs, noReduction, noDebris, altitudesOverlap, planesIntersect, allStrategies);
+        BenchmarkResult payloadVsAll = benchmarkStrategy(
+                "payload vs all",
+                satellites,
+                totalPairs,
+                ScreeningPolicy.PAYLOAD_VS_ALL::screens
+        );
+
+        // The pair search used by screening, one row per object type policy
+        BenchmarkResult[] searches = new BenchmarkResult[ScreeningPolicy.values().length];
+        for (ScreeningPolicy policy : ScreeningPolicy.values()) {
+            searches[policy.ordinal()] = benchmarkPairSearch(policy, satellites, totalPairs);
+        }
+
+        printResultsTable(totalPairs, noReduction, noDebris, altitudesOverlap, planesIntersect, allStrategies,
+                payloadVsAll);
+        printResultsTable(totalPairs, searches);
+    }
+
+    private BenchmarkResult benchmarkPairSearch(ScreeningPolicy policy, List<Satellite> satellites, long totalPairs) {
+        String name = "search " + policy;
+        log.info("Benchmarking: {}", name);
+
+        long startTime = System.nanoTime();
+        int pairCount = pairReductionService.findPotentialCollisionPairs(satellites, DEFAULT_TOLERANCE_KM, policy).size();
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        // Candidate pairs are held as one long each
+        log.info(" -> {} pairs ({} MB) in {}ms", String.format("%,d", pairCount),
+                String.format("%.1f", pairCount * 8.0 / (1024 * 1024)), elapsedNanos / 1_000_000);
+
+        return new BenchmarkResult(name, pairCount, elapsedNanos, totalPairs);
     }
 
     private BenchmarkResult benchmarkStrategy(
@@ -117,12 +148,12 @@ public class PairReductionBenchmark implements CommandLineRunner {
 
     private void printResultsTable(long totalPairs, BenchmarkResult... results) {
         log.info("");
-        log.info("=".repeat(80));
+        log.info("=".repeat(87));
         log.info("BENCHMARK RESULTS ({} total pairs)", String.format("%,d", totalPairs));
-        log.info("=".repeat(80));
-        log.info(String.format("%-19s | %12s | %13s | %10s | %14s",
+        log.info("=".repeat(87));
+        log.info(String.format("%-26s | %12s | %13s | %10s | %14s",
                 "strategy", "unique pairs", "% of full set", "time", "throughput/sec"));
-        log.info("-".repeat(80));
+        log.info("-".repeat(87));
 
         for (BenchmarkResult result : results) {
             double percentOfFull = 100.0 * result.passingPairs / result.totalPairs;
@@ -133,7 +164,7 @@ public class PairReductionBenchmark implements CommandLineRunner {
                     ? String.format("%.2fs", elapsedSeconds)
                     : String.format("%.0fms", result.elapsedNanos / 1_000_000.0);
 
-            log.info(String.format("%-19s | %12s | %12.2f%% | %10s | %14s",
+            log.info(String.format("%-26s | %12s | %12.2f%% | %10s | %14s",
                     result.name,
                     String.format("%,d", result.passingPairs),
                     percentOfFull,
@@ -141,7 +172,7 @@ public class PairReductionBenchmark implements CommandLineRunner {
                     String.format("%,.0f", throughput)));
         }
 
-        log.info("=".repeat(80));
+        log.info("=".repeat(87));
     }
 
     private record BenchmarkResult(String name, long passingPairs, long elapsedNanos, long totalPairs) {
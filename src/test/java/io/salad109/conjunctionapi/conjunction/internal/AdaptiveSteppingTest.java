@@ -0,0 +1,135 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Adaptive stepping against the fixed-step scan on lossy position sources: a float cache of crossing orbits, and a
+ * source whose stored positions are off by its full error bound in the direction that shortens jumps least.
+ */
+class AdaptiveSteppingTest {
+
+    private static final int STEPS = 4000;
+
+    @Test
+    void floatCacheGivesSameDetections() {
+        double radiusKm = 7000;
+        double stepSeconds = 10;
+        double meanMotion = Math.sqrt(398600.4418 / (radiusKm * radiusKm * radiusKm));
+        int satellites = 6;
+
+        FloatPositionCache cache = new FloatPositionCache(Map.of(0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5), STEPS,
+                PositionCache.Layout.SATELLITE_MAJOR);
+        for (int sat = 0; sat < satellites; sat++) {
+            // Planes through the same node, phases a few km apart, so every pair has near misses at the node
+            double inclination = Math.toRadians(10 + 15 * sat);
+            double phase = 0.0007 * sat;
+            for (int step = 0; step < STEPS; step++) {
+                double u = meanMotion * step * stepSeconds + phase;
+                cache.store(sat, step, radiusKm * Math.cos(u), radiusKm * Math.sin(u) * Math.cos(inclination),
+                        radiusKm * Math.sin(u) * Math.sin(inclination));
+            }
+        }
+
+        double paddedToleranceKm = 25 + 2 * cache.positionErrorBoundKm();
+        double closingKmPerStep = 2 * meanMotion * radiusKm * stepSeconds;
+        for (int a = 0; a < satellites; a++) {
+            for (int b = a + 1; b < satellites; b++) {
+                assertSameDetections(cache, a, b, paddedToleranceKm, closingKmPerStep);
+            }
+        }
+    }
+
+    @Test
+    void worstCaseStorageErrorGivesSameDetections() {
+        for (int phase = 0; phase < 10; phase++) {
+            WorstCaseSource source = new WorstCaseSource(8 + phase * WorstCaseSource.CLOSING_KM_PER_STEP / 10);
+            assertSameDetections(source, 0, 1, WorstCaseSource.TOLERANCE_KM, WorstCaseSource.CLOSING_KM_PER_STEP);
+        }
+    }
+
+    private static void assertSameDetections(PositionSource source, int a, int b, double paddedToleranceKm,
+                                             double closingKmPerStep) {
+        double tolSq = paddedToleranceKm * paddedToleranceKm;
+        List<String> expected = new ArrayList<>();
+        ScanService.scanRange(source, a, b, 0, STEPS, tolSq, (step, distSq) -> expected.add(step + ":" + distSq));
+        assertFalse(expected.isEmpty(), "pair " + a + "-" + b + " never within tolerance");
+
+        List<String> actual = new ArrayList<>();
+        double skipToleranceKm = ScanService.skipToleranceKm(paddedToleranceKm, source.positionErrorBoundKm());
+        ScanService.scanRangeAdaptive(source, a, b, 0, STEPS, skipToleranceKm, closingKmPerStep, tolSq,
+                (step, distSq) -> actual.add(step + ":" + distSq));
+
+        assertEquals(expected, actual, "pair " + a + "-" + b);
+    }
+
+    /**
+     * Two satellites on a line, one passing through the other at CLOSING_KM_PER_STEP. Each stored position is off by
+     * the error bound along the line of sight, so stored distances are 2e long while the true distance is at least
+     * 2e outside the tolerance, and 2e short closer in.
+     */
+    private static final class WorstCaseSource implements PositionSource {
+
+        static final double TOLERANCE_KM = 5;
+        static final double ERROR_KM = 0.01;
+        // Slower than the error, so a jump that lands just outside the tolerance skips stored hits
+        static final double CLOSING_KM_PER_STEP = 0.004;
+
+        private final double startKm;
+
+        WorstCaseSource(double startKm) {
+            this.startKm = startKm;
+        }
+
+        @Override
+        public Map<Integer, Integer> noradIdToArrayId() {
+            return Map.of(0, 0, 1, 1);
+        }
+
+        @Override
+        public int totalSteps() {
+            return STEPS;
+        }
+
+        @Override
+        public double x(int sat, int step) {
+            double trueX = sat == 0 ? 0 : startKm - CLOSING_KM_PER_STEP * step;
+            double lineOfSight = startKm - CLOSING_KM_PER_STEP * step >= 0 ? 1 : -1;
+            double trueDistance = Math.abs(startKm - CLOSING_KM_PER_STEP * step);
+            double error = trueDistance >= TOLERANCE_KM + 2 * ERROR_KM ? ERROR_KM : -ERROR_KM;
+            return trueX + (sat == 0 ? -error : error) * lineOfSight;
+        }
+
+        @Override
+        public double y(int sat, int step) {
+            return 0;
+        }
+
+        @Override
+        public double z(int sat, int step) {
+            return 0;
+        }
+
+        @Override
+        public boolean isValid(int sat, int step) {
+            return true;
+        }
+
+        @Override
+        public double distanceSquaredAt(int a, int b, int step, double tolSq) {
+            double dx = x(a, step) - x(b, step);
+            return dx * dx;
+        }
+
+        @Override
+        public double positionErrorBoundKm() {
+            return ERROR_KM;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.orekit.data.DataContext;
+import org.orekit.data.DirectoryCrawler;
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScalesFactory;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chebyshev store at the default segment length and degree against SGP4 at every step of a day: the memory it saves
+ * over a step-sampled cache, and the error bound the coarse tolerance is padded by, on LEO and eccentric orbits.
+ */
+class ChebyshevPositionsTest {
+
+    // Defaults of conjunction.chebyshev-segment-minutes, conjunction.chebyshev-degree and conjunction.step-seconds
+    private static final double SEGMENT_MINUTES = 120;
+    private static final int DEGREE = 15;
+    private static final int STEP_SECONDS = 35;
+    private static final int TOTAL_STEPS = 24 * 3600 / STEP_SECONDS + 1;
+
+    @BeforeAll
+    static void loadOrekitData() {
+        File orekitData = new File("src/test/resources/orekit-data");
+        assertTrue(orekitData.isDirectory(), "test orekit-data missing");
+        DataContext.getDefault().getDataProvidersManager().addProvider(new DirectoryCrawler(orekitData));
+    }
+
+    @Test
+    void defaultsCompressTenfoldWithinErrorBound() {
+        NativeSgp4 sgp4 = new NativeSgp4(catalog());
+        Map<Integer, Integer> noradIdToArrayId = HashMap.newHashMap(sgp4.size());
+        for (int i = 0; i < sgp4.size(); i++) {
+            noradIdToArrayId.put(i, i);
+        }
+
+        // Same span as PropagationService, one step before the scan to the last step
+        ChebyshevEphemeris ephemeris = new ChebyshevEphemeris(noradIdToArrayId, -STEP_SECONDS,
+                (double) TOTAL_STEPS * STEP_SECONDS, SEGMENT_MINUTES * 60, DEGREE);
+        double[] samples = new double[3 * ephemeris.nodes()];
+        double[] state = new double[6];
+        for (int sat = 0; sat < sgp4.size(); sat++) {
+            for (int segment = 0; segment < ephemeris.segments(); segment++) {
+                for (int node = 0; node < ephemeris.nodes(); node++) {
+                    assertTrue(sgp4.propagate(sat, ephemeris.nodeSeconds(segment, node) / 60, state, 0, false));
+                    System.arraycopy(state, 0, samples, 3 * node, 3);
+                }
+                ephemeris.fit(sat, segment, samples);
+            }
+        }
+
+        double compression = (double) PositionCache.length(sgp4.size(), TOTAL_STEPS) / ephemeris.size();
+        assertTrue(compression >= 10, "compression " + compression);
+
+        ChebyshevPositions positions = new ChebyshevPositions(ephemeris, TOTAL_STEPS, STEP_SECONDS);
+        double boundKm = positions.positionErrorBoundKm();
+        for (int sat = 0; sat < sgp4.size(); sat++) {
+            for (int step = 0; step < TOTAL_STEPS; step++) {
+                assertTrue(sgp4.propagate(sat, step * STEP_SECONDS / 60.0, state, 0, false));
+                double dx = positions.x(sat, step) - state[0];
+                double dy = positions.y(sat, step) - state[1];
+                double dz = positions.z(sat, step) - state[2];
+                double errorKm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                assertTrue(errorKm <= boundKm, "satellite " + sat + " step " + step + ": " + errorKm + " km over "
+                        + boundKm + " km");
+            }
+        }
+    }
+
+    /**
+     * Near-Earth orbits with perigee from 200 km, alternating near-circular LEO and eccentricity up to 0.7.
+     */
+    private static Map<Integer, TLE> catalog() {
+        AbsoluteDate epoch = new AbsoluteDate(2026, 1, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+        Random random = new Random(11);
+        Map<Integer, TLE> tles = new LinkedHashMap<>();
+        for (int i = 0; i < 60; i++) {
+            double meanMotion;
+            double eccentricity;
+            do {
+                meanMotion = (i % 2 == 0 ? 11 : 6.5) + random.nextDouble() * (i % 2 == 0 ? 5.2 : 9.7);
+                eccentricity = random.nextDouble() * (i % 2 == 0 ? 0.02 : 0.7);
+            } while (perigeeKm(meanMotion, eccentricity) < 200);
+            tles.put(i, new TLE(i, 'U', 2000, 1, "A", 0, 999, epoch,
+                    meanMotion * 2 * Math.PI / 86400, 0, 0, eccentricity,
+                    Math.toRadians(random.nextDouble() * 180), Math.toRadians(random.nextDouble() * 360),
+                    Math.toRadians(random.nextDouble() * 360), Math.toRadians(random.nextDouble() * 360), 1,
+                    random.nextDouble() * 3e-4));
+        }
+        return tles;
+    }
+
+    private static double perigeeKm(double revolutionsPerDay, double eccentricity) {
+        double meanMotion = revolutionsPerDay * 2 * Math.PI / 86400;
+        return Math.cbrt(398600.4418 / (meanMotion * meanMotion)) * (1 - eccentricity) - 6378.135;
+    }
+}
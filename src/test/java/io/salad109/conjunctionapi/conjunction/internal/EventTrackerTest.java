@@ -0,0 +1,78 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import io.salad109.conjunctionapi.satellite.Satellite;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Events of a pair swept in two chunks against a single pass, for every step the chunks can meet at, so boundaries
+ * fall before, inside, on the minimum of and after each run.
+ */
+class EventTrackerTest {
+
+    private static final int STEPS = 36;
+    private static final double TOLERANCE_KM = 7;
+
+    private final Satellite[] satellites = {new Satellite(1), new Satellite(2)};
+
+    @Test
+    void chunkBoundaryGivesSameEventsAsSinglePass() {
+        PositionCache wholeCache = cache(0, STEPS);
+        EventTracker whole = new EventTracker(wholeCache, satellites);
+        whole.reset(0, 1);
+        feed(whole, wholeCache, 0);
+        whole.finish();
+        List<ScanService.CoarseEvent> expected = whole.events();
+        assertEquals(2, expected.size());
+
+        for (int boundary = 1; boundary < STEPS - 1; boundary++) {
+            // Chunks share their boundary step, the second one sweeps from the step after it
+            PositionCache firstCache = cache(0, boundary + 1);
+            EventTracker first = new EventTracker(firstCache, 0, satellites);
+            first.reset(0, 1);
+            feed(first, firstCache, 0);
+            EventTracker.OpenRun run = first.suspend();
+
+            PositionCache secondCache = cache(boundary, STEPS - boundary);
+            EventTracker second = new EventTracker(secondCache, boundary, satellites);
+            second.resume(0, 1, run);
+            feed(second, secondCache, 1);
+            second.finish();
+
+            List<ScanService.CoarseEvent> actual = new ArrayList<>(first.events());
+            actual.addAll(second.events());
+            assertEquals(expected, actual, "chunks meeting at step " + boundary);
+        }
+    }
+
+    private static void feed(EventTracker tracker, PositionSource cache, int fromStep) {
+        double tolSq = TOLERANCE_KM * TOLERANCE_KM;
+        for (int step = fromStep; step < cache.totalSteps(); step++) {
+            if (!cache.validAt(0, 1, step)) continue;
+            double distSq = cache.distanceSquaredAt(0, 1, step, tolSq);
+            if (distSq < tolSq) {
+                tracker.accept(step, distSq);
+            }
+        }
+    }
+
+    /**
+     * Steps firstStep onwards of a pair with one approach around step 10 and a flat-bottomed one around step 25.
+     */
+    private static PositionCache cache(int firstStep, int steps) {
+        HeapPositionCache cache = new HeapPositionCache(Map.of(1, 0, 2, 1), steps,
+                PositionCache.Layout.SATELLITE_MAJOR);
+        for (int chunkStep = 0; chunkStep < steps; chunkStep++) {
+            int step = firstStep + chunkStep;
+            double separation = 1 + Math.min(1.5 * Math.abs(step - 10), Math.max(0, Math.abs(step - 25) - 1));
+            cache.store(0, chunkStep, 7000, 0, 0);
+            cache.store(1, chunkStep, 7000 + separation, 0, 0);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,115 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.orekit.data.DataContext;
+import org.orekit.data.DirectoryCrawler;
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.propagation.analytical.tle.TLEPropagator;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.PVCoordinates;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conformance of the native SGP4 kernel against Orekit's TLEPropagator, on TLEs from the SGP4 verification set
+ * covering the branches of the near-Earth initialization.
+ */
+class NativeSgp4Test {
+
+    private static final double POSITION_TOLERANCE_KM = 1e-5;
+    private static final double VELOCITY_TOLERANCE_KM_S = 1e-8;
+
+    private static final String[][] NEAR_EARTH = {
+            // ISS, low eccentricity LEO
+            {"1 25544U 98067A   08264.51782528 -.00002182  00000-0 -11606-4 0  2927",
+                    "2 25544  51.6416 247.4627 0006703 130.5360 325.0288 15.72125391563537"},
+            // Vanguard 1, eccentric orbit with a period below 225 minutes
+            {"1 00005U 58002B   00179.78495062  .00000023  00000-0  28098-4 0  4753",
+                    "2 00005  34.2682 348.7242 1859667 331.7664  19.3264 10.82419157413667"},
+            // Moderate drag
+            {"1 06251U 62025E   06176.82412014  .00008885  00000-0  12808-3 0  3985",
+                    "2 06251  58.0579  54.0425 0030035 139.1568 221.1854 15.56387291  6774"},
+            // Eccentricity below 1e-4, sun-synchronous
+            {"1 28057U 03049A   06177.78615833  .00000060  00000-0  35940-4 0  1836",
+                    "2 28057  98.4283 247.6961 0000884  88.1964 272.0236 14.35390154148357"},
+            // Perigee below 156 km, truncated drag equations
+            {"1 29238U 06022G   06177.28732010  .00766286  10823-4  13334-2 0   101",
+                    "2 29238  51.5595 213.7903 0202579  95.2503 267.9010 15.73823839  1061"}
+    };
+
+    // Geostationary, handled by SDP4
+    private static final String[] DEEP_SPACE = {
+            "1 28626U 05008A   06176.46683397 -.00000205  00000-0  10000-3 0  2190",
+            "2 28626   0.0019 286.9433 0000335  13.7918  55.6504  1.00270176  4891"};
+
+    @BeforeAll
+    static void loadOrekitData() {
+        // UTC-TAI history only, TLE dates need UTC and both sides stay in TEME so no Earth orientation data is read
+        File orekitData = new File("src/test/resources/orekit-data");
+        assertTrue(orekitData.isDirectory(), "test orekit-data missing");
+        DataContext.getDefault().getDataProvidersManager().addProvider(new DirectoryCrawler(orekitData));
+    }
+
+    @Test
+    void matchesOrekitForNearEarthSatellites() {
+        Map<Integer, TLE> tles = new LinkedHashMap<>();
+        for (String[] lines : NEAR_EARTH) {
+            TLE tle = new TLE(lines[0], lines[1]);
+            tles.put(tle.getSatelliteNumber(), tle);
+        }
+        NativeSgp4 kernel = new NativeSgp4(tles);
+        double[] state = new double[6];
+
+        for (TLE tle : tles.values()) {
+            int index = kernel.indexOf(tle.getSatelliteNumber());
+            assertTrue(kernel.supports(index), "near-Earth satellite " + tle.getSatelliteNumber());
+            TLEPropagator orekit = TLEPropagator.selectExtrapolator(tle);
+
+            // Both sides of the epoch, off the multiples of the orbital period
+            for (double minutes = -720; minutes <= 1440; minutes += 37) {
+                AbsoluteDate date = tle.getDate().shiftedBy(minutes * 60.0);
+                PVCoordinates expected = orekit.getPVCoordinates(date, orekit.getFrame());
+
+                assertTrue(kernel.propagate(index, kernel.minutesSinceEpoch(index, date), state, 0, true));
+                String at = tle.getSatelliteNumber() + " at " + minutes + " min";
+                assertEquals(expected.getPosition().getX() / 1000.0, state[0], POSITION_TOLERANCE_KM, at);
+                assertEquals(expected.getPosition().getY() / 1000.0, state[1], POSITION_TOLERANCE_KM, at);
+                assertEquals(expected.getPosition().getZ() / 1000.0, state[2], POSITION_TOLERANCE_KM, at);
+                assertEquals(expected.getVelocity().getX() / 1000.0, state[3], VELOCITY_TOLERANCE_KM_S, at);
+                assertEquals(expected.getVelocity().getY() / 1000.0, state[4], VELOCITY_TOLERANCE_KM_S, at);
+                assertEquals(expected.getVelocity().getZ() / 1000.0, state[5], VELOCITY_TOLERANCE_KM_S, at);
+            }
+        }
+    }
+
+    @Test
+    void positionOnlyMatchesFullState() {
+        TLE tle = new TLE(NEAR_EARTH[0][0], NEAR_EARTH[0][1]);
+        NativeSgp4 kernel = new NativeSgp4(Map.of(tle.getSatelliteNumber(), tle));
+        int index = kernel.indexOf(tle.getSatelliteNumber());
+        double[] state = new double[6];
+        double[] positions = new double[6];
+
+        assertTrue(kernel.propagate(index, 123.4, state, 0, true));
+        assertTrue(kernel.propagate(index, 123.4, positions, 3, false));
+        assertEquals(state[0], positions[3]);
+        assertEquals(state[1], positions[4]);
+        assertEquals(state[2], positions[5]);
+    }
+
+    @Test
+    void leavesDeepSpaceSatellitesToOrekit() {
+        TLE tle = new TLE(DEEP_SPACE[0], DEEP_SPACE[1]);
+        NativeSgp4 kernel = new NativeSgp4(Map.of(tle.getSatelliteNumber(), tle));
+
+        assertFalse(kernel.supports(kernel.indexOf(tle.getSatelliteNumber())));
+        assertFalse(kernel.supports(kernel.indexOf(99999)));
+    }
+}
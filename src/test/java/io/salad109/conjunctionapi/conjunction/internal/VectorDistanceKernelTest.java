@@ -0,0 +1,61 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The vector kernel against the scalar sweep it replaces, on a planar cache with close passes, invalid samples and
+ * ranges that do not fill whole vectors.
+ */
+class VectorDistanceKernelTest {
+
+    private static final int STEPS = 203;
+    private static final double TOLERANCE_KM = 50;
+
+    @Test
+    void reportsSameStepsAsScalarSweep() {
+        assertTrue(VectorApi.isAvailable(), "tests run with --add-modules jdk.incubator.vector");
+
+        HeapPositionCache cache = new HeapPositionCache(Map.of(0, 0, 1, 1, 2, 2), STEPS,
+                PositionCache.Layout.SATELLITE_PLANAR);
+        Random random = new Random(42);
+        for (int sat = 0; sat < 3; sat++) {
+            for (int step = 0; step < STEPS; step++) {
+                // Oscillating separation, so runs of steps go in and out of tolerance
+                double offset = 120 * Math.sin(step * 0.11 + sat) + random.nextDouble();
+                cache.store(sat, step, 7000 + offset, sat * 10.0 + random.nextDouble(), -offset / 2);
+            }
+        }
+        for (int step : new int[]{3, 17, 18, 64, 150}) {
+            cache.store(1, step, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        double tolSq = TOLERANCE_KM * TOLERANCE_KM;
+        int[][] ranges = {{0, STEPS}, {5, 6}, {7, 40}, {63, 131}, {200, STEPS}};
+        for (int[] pair : new int[][]{{0, 1}, {1, 2}, {0, 2}}) {
+            for (int[] range : ranges) {
+                List<String> expected = new ArrayList<>();
+                for (int step = range[0]; step < range[1]; step++) {
+                    if (!cache.validAt(pair[0], pair[1], step)) continue;
+                    double distSq = cache.distanceSquaredAt(pair[0], pair[1], step, tolSq);
+                    if (distSq < tolSq) {
+                        expected.add(step + ":" + distSq);
+                    }
+                }
+
+                List<String> actual = new ArrayList<>();
+                VectorDistanceKernel.scan(cache, pair[0], pair[1], range[0], range[1], tolSq,
+                        (step, distSq) -> actual.add(step + ":" + distSq));
+
+                assertEquals(expected, actual, "pair " + pair[0] + "-" + pair[1] + " over " + range[0] + ".." + range[1]);
+            }
+        }
+    }
+}
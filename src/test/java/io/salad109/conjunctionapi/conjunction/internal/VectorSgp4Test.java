@@ -0,0 +1,119 @@
+package io.salad109.conjunctionapi.conjunction.internal;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.orekit.data.DataContext;
+import org.orekit.data.DirectoryCrawler;
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScalesFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The vector SGP4 kernel against the scalar one it replaces, on a mixed near-Earth catalog with decaying,
+ * highly eccentric and near-parabolic orbits, over blocks that do not fill whole vectors.
+ */
+class VectorSgp4Test {
+
+    private static final double POSITION_TOLERANCE_KM = 1e-6;
+
+    @BeforeAll
+    static void loadOrekitData() {
+        File orekitData = new File("src/test/resources/orekit-data");
+        assertTrue(orekitData.isDirectory(), "test orekit-data missing");
+        DataContext.getDefault().getDataProvidersManager().addProvider(new DirectoryCrawler(orekitData));
+    }
+
+    @Test
+    void matchesScalarKernel() {
+        assertTrue(VectorApi.isAvailable(), "tests run with --add-modules jdk.incubator.vector");
+
+        NativeSgp4 kernel = new NativeSgp4(mixedCatalog());
+        List<Integer> supported = new ArrayList<>();
+        for (int index = 0; index < kernel.size(); index++) {
+            if (kernel.supports(index)) supported.add(index);
+        }
+        int[] indices = supported.stream().mapToInt(Integer::intValue).toArray();
+        assertTrue(indices.length > 40, "too few near-Earth satellites: " + indices.length);
+
+        // Single lanes, partial vectors and several vectors with a tail
+        Random random = new Random(3);
+        for (int size : new int[]{1, 2, 3, 5, 7, 8, 9, 13, 16, 17, 31, indices.length}) {
+            int from = random.nextInt(indices.length - size + 1);
+            NativeSgp4 block = kernel.block(indices, from, from + size);
+
+            for (double minutes = -1440; minutes <= 7 * 1440; minutes += 517) {
+                double[] times = new double[size];
+                for (int lane = 0; lane < size; lane++) {
+                    times[lane] = minutes + lane * 3.7;
+                }
+                double[][] expected = {new double[size], new double[size], new double[size]};
+                double[][] actual = {new double[size], new double[size], new double[size]};
+                block.propagatePositions(times, expected[0], expected[1], expected[2]);
+                VectorSgp4.propagatePositions(block, times, actual[0], actual[1], actual[2]);
+
+                for (int lane = 0; lane < size; lane++) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        String at = "lane " + lane + " of " + size + " at " + times[lane] + " min, axis " + axis;
+                        if (Double.isNaN(expected[axis][lane])) {
+                            assertTrue(Double.isNaN(actual[axis][lane]), at);
+                        } else {
+                            assertEquals(expected[axis][lane], actual[axis][lane], POSITION_TOLERANCE_KM, at);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<Integer, TLE> mixedCatalog() {
+        AbsoluteDate epoch = new AbsoluteDate(2026, 1, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+        Random random = new Random(5);
+        Map<Integer, TLE> tles = new LinkedHashMap<>();
+        for (int i = 0; i < 120; i++) {
+            double meanMotion;
+            double eccentricity;
+            double bStar;
+            switch (i % 4) {
+                case 0 -> {
+                    // LEO up to moderate eccentricity
+                    meanMotion = 13 + random.nextDouble() * 3;
+                    eccentricity = random.nextDouble() * 0.05;
+                    bStar = random.nextDouble() * 5e-4;
+                }
+                case 1 -> {
+                    // Decaying, perigee below 220 km and strong drag, lanes drop out as eccentricity runs away
+                    meanMotion = 15.9 + random.nextDouble() * 0.5;
+                    eccentricity = random.nextDouble() * 0.01;
+                    bStar = 1e-3 + random.nextDouble() * 4e-3;
+                }
+                case 2 -> {
+                    // Transfer orbits, Kepler's equation needs many iterations near perigee
+                    meanMotion = 6.5 + random.nextDouble() * 4;
+                    eccentricity = 0.6 + random.nextDouble() * 0.15;
+                    bStar = random.nextDouble() * 1e-4;
+                }
+                default -> {
+                    // Near-parabolic
+                    meanMotion = 6.4 + random.nextDouble() * 0.5;
+                    eccentricity = 0.9 + random.nextDouble() * 0.099;
+                    bStar = random.nextDouble() * 1e-5;
+                }
+            }
+            tles.put(i, new TLE(i, 'U', 2000, 1, "A", 0, 999, epoch,
+                    meanMotion * 2 * Math.PI / 86400, 0, 0, eccentricity,
+                    Math.toRadians(random.nextDouble() * 100), Math.toRadians(random.nextDouble() * 360),
+                    Math.toRadians(random.nextDouble() * 360), Math.toRadians(random.nextDouble() * 360), 1, bStar));
+        }
+        return tles;
+    }
+}
@@ -0,0 +1,124 @@
+package io.salad109.conjunctionapi.satellite;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.orekit.data.DataContext;
+import org.orekit.data.DirectoryCrawler;
+import org.orekit.propagation.analytical.tle.TLE;
+import org.orekit.propagation.analytical.tle.TLEPropagator;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScalesFactory;
+
+import java.io.File;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Every close approach sampled with Orekit's SGP4 must fall inside the pair's time windows, on a catalog with drag
+ * from decaying objects below 220 km perigee to high-B* objects above it, over a multi-day lookahead from TLEs up to
+ * two days old.
+ */
+class NodeCrossingWindowsTest {
+
+    private static final OffsetDateTime START = OffsetDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final double LOOKAHEAD_SECONDS = 2 * 86400;
+    private static final double STEP_SECONDS = 10;
+    private static final double DISTANCE_KM = 50;
+    // Default conjunction.time-filter-margin-km
+    private static final double MARGIN_KM = 10;
+
+    @BeforeAll
+    static void loadOrekitData() {
+        File orekitData = new File("src/test/resources/orekit-data");
+        assertTrue(orekitData.isDirectory(), "test orekit-data missing");
+        DataContext.getDefault().getDataProvidersManager().addProvider(new DirectoryCrawler(orekitData));
+    }
+
+    @Test
+    void windowsContainEverySampledApproach() {
+        AbsoluteDate start = new AbsoluteDate(2026, 1, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+        Random random = new Random(11);
+        List<Satellite> satellites = new ArrayList<>();
+        List<TLEPropagator> propagators = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // A third decays from below 220 km perigee, the others spread over LEO up to moderate eccentricity
+            boolean decaying = i % 3 == 0;
+            double meanMotion = decaying ? 15.95 + random.nextDouble() * 0.4 : 14.8 + random.nextDouble() * 0.8;
+            double eccentricity = decaying ? random.nextDouble() * 0.004 : random.nextDouble() * 0.03;
+            double bStar = random.nextDouble() * (decaying ? 2e-3 : 5e-4);
+            double inclination = random.nextDouble() * 100;
+            double raan = random.nextDouble() * 360;
+            double argPerigee = random.nextDouble() * 360;
+            double meanAnomaly = random.nextDouble() * 360;
+            long epochAgeSeconds = (long) (random.nextDouble() * 2 * 86400);
+
+            Satellite satellite = new Satellite(i);
+            satellite.setObjectType("PAYLOAD");
+            satellite.setMeanMotion(meanMotion);
+            satellite.setEccentricity(eccentricity);
+            satellite.setInclination(inclination);
+            satellite.setRaan(raan);
+            satellite.setArgPerigee(argPerigee);
+            satellite.setMeanAnomaly(meanAnomaly);
+            satellite.setBstar(bStar);
+            satellite.setEpoch(START.minusSeconds(epochAgeSeconds));
+            satellite.computeDerivedParameters();
+            satellites.add(satellite);
+
+            TLE tle = new TLE(i, 'U', 2000, 1, "A", 0, 999, start.shiftedBy(-epochAgeSeconds),
+                    meanMotion * 2 * Math.PI / 86400, 0, 0, eccentricity, Math.toRadians(inclination),
+                    Math.toRadians(argPerigee), Math.toRadians(raan), Math.toRadians(meanAnomaly), 1, bStar);
+            propagators.add(TLEPropagator.selectExtrapolator(tle));
+        }
+
+        int steps = (int) (LOOKAHEAD_SECONDS / STEP_SECONDS) + 1;
+        double[][] positions = new double[satellites.size()][3 * steps];
+        for (int i = 0; i < satellites.size(); i++) {
+            TLEPropagator propagator = propagators.get(i);
+            for (int step = 0; step < steps; step++) {
+                Vector3D position = propagator.getPVCoordinates(start.shiftedBy(step * STEP_SECONDS),
+                        propagator.getFrame()).getPosition();
+                positions[i][3 * step] = position.getX() / 1000;
+                positions[i][3 * step + 1] = position.getY() / 1000;
+                positions[i][3 * step + 2] = position.getZ() / 1000;
+            }
+        }
+
+        PairReductionService service = new PairReductionService();
+        CandidatePairs pairs = service.findPotentialCollisionPairs(satellites, DISTANCE_KM, ScreeningPolicy.ALL);
+        PairTimeWindows windows = service.findTimeWindows(pairs, START, LOOKAHEAD_SECONDS, DISTANCE_KM + MARGIN_KM);
+
+        int approaches = 0;
+        for (int k = 0; k < pairs.size(); k++) {
+            double[] a = positions[pairs.first(k)];
+            double[] b = positions[pairs.second(k)];
+            for (int step = 0; step < steps; step++) {
+                double dx = a[3 * step] - b[3 * step];
+                double dy = a[3 * step + 1] - b[3 * step + 1];
+                double dz = a[3 * step + 2] - b[3 * step + 2];
+                if (!(Math.sqrt(dx * dx + dy * dy + dz * dz) < DISTANCE_KM)) continue;
+                approaches++;
+
+                double t = step * STEP_SECONDS;
+                boolean covered = false;
+                for (int w = 0; w < windows.windowCount(k) && !covered; w++) {
+                    covered = t >= windows.start(k, w) && t <= windows.end(k, w);
+                }
+                if (!covered) {
+                    fail("approach of " + pairs.first(k) + " and " + pairs.second(k) + " at " + t + " s outside windows");
+                }
+            }
+        }
+
+        assertTrue(approaches > 100, "too few approaches to be meaningful: " + approaches);
+        double keptFraction = windows.totalSeconds() / (pairs.size() * LOOKAHEAD_SECONDS);
+        assertTrue(keptFraction < 0.2, "filter kept " + keptFraction + " of the pair-seconds");
+    }
+}
@@ -0,0 +1,151 @@
+package io.salad109.conjunctionapi.satellite;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The perigee-sorted and incremental pair searches against the reference O(n²) loop over
+ * {@link PairReductionService#canCollide(Satellite, Satellite, double)}, on a synthetic catalog with coplanar and
+ * near-coplanar clusters and highly eccentric transfer orbits.
+ */
+class PairReductionServiceTest {
+
+    private static final double TOLERANCE_KM = 12.5;
+
+    private final PairReductionService service = new PairReductionService();
+
+    @Test
+    void fullSearchMatchesReferenceLoop() {
+        List<Satellite> satellites = syntheticCatalog();
+        for (ScreeningPolicy policy : ScreeningPolicy.values()) {
+            Set<String> expected = referencePairs(satellites, policy, index -> true);
+            assertTrue(expected.size() > 100, "catalog too sparse to be meaningful");
+
+            CandidatePairs pairs = service.findPotentialCollisionPairs(satellites, TOLERANCE_KM, policy);
+            assertEquals(expected, pairsOf(pairs), policy.name());
+        }
+    }
+
+    @Test
+    void incrementalSearchMatchesReferenceLoop() {
+        List<Satellite> satellites = syntheticCatalog();
+        // A few changed satellites, and a catalog where most TLEs were refreshed
+        for (boolean mostChanged : new boolean[]{false, true}) {
+            Set<Integer> changed = new TreeSet<>();
+            for (int i = 0; i < satellites.size(); i++) {
+                if (mostChanged ? i % 5 != 0 : i % 17 == 0) {
+                    changed.add(satellites.get(i).getNoradCatId());
+                }
+            }
+            // Coplanar cluster members and an eccentric orbit, so pairs of two changed satellites occur
+            changed.addAll(List.of(100_000, 100_001, 200_000));
+
+            for (ScreeningPolicy policy : ScreeningPolicy.values()) {
+                Set<String> expected = referencePairs(satellites, policy,
+                        index -> changed.contains(satellites.get(index).getNoradCatId()));
+
+                CandidatePairs pairs = service.findPotentialCollisionPairs(satellites, changed, TOLERANCE_KM, policy);
+                assertEquals(pairs.size(), pairsOf(pairs).size(), "duplicate pairs under " + policy);
+                assertEquals(expected, pairsOf(pairs), policy + ", " + changed.size() + " changed");
+            }
+        }
+    }
+
+    @Test
+    void incrementalSearchStopsPastMaxPairs() {
+        List<Satellite> satellites = syntheticCatalog();
+        Set<Integer> changed = new TreeSet<>();
+        for (int i = 0; i < satellites.size(); i += 2) {
+            changed.add(satellites.get(i).getNoradCatId());
+        }
+
+        int pairCount = service.findPotentialCollisionPairs(satellites, changed, TOLERANCE_KM, ScreeningPolicy.ALL)
+                .size();
+        assertTrue(service.findPotentialCollisionPairs(satellites, changed, TOLERANCE_KM, ScreeningPolicy.ALL,
+                pairCount - 1).isEmpty());
+        assertEquals(pairCount, service.findPotentialCollisionPairs(satellites, changed, TOLERANCE_KM,
+                ScreeningPolicy.ALL, pairCount).orElseThrow().size());
+    }
+
+    private Set<String> referencePairs(List<Satellite> satellites, ScreeningPolicy policy,
+                                       IntPredicate involved) {
+        Set<String> pairs = new TreeSet<>();
+        for (int i = 0; i < satellites.size(); i++) {
+            for (int j = i + 1; j < satellites.size(); j++) {
+                if (!involved.test(i) && !involved.test(j)) continue;
+                Satellite a = satellites.get(i);
+                Satellite b = satellites.get(j);
+                // canCollide screens with EXCLUDE_DEBRIS, other policies swap that filter only
+                boolean collide = policy == ScreeningPolicy.EXCLUDE_DEBRIS
+                        ? service.canCollide(a, b, TOLERANCE_KM)
+                        : service.altitudeShellsOverlap(a, b, TOLERANCE_KM) && policy.screens(a, b)
+                        && service.orbitalPlanesIntersect(a, b, TOLERANCE_KM);
+                if (collide) {
+                    pairs.add(i + "-" + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static Set<String> pairsOf(CandidatePairs pairs) {
+        Set<String> result = new TreeSet<>();
+        for (int k = 0; k < pairs.size(); k++) {
+            result.add(pairs.first(k) + "-" + pairs.second(k));
+        }
+        return result;
+    }
+
+    private static List<Satellite> syntheticCatalog() {
+        Random random = new Random(7);
+        List<Satellite> satellites = new ArrayList<>();
+        String[] types = {"PAYLOAD", "DEBRIS", "ROCKET BODY"};
+
+        // LEO background, half of it nearly circular
+        for (int i = 0; i < 1500; i++) {
+            double eccentricity = random.nextBoolean() ? random.nextDouble() * 0.002 : random.nextDouble() * 0.05;
+            satellites.add(satellite(i, 13.5 + random.nextDouble() * 2.5, eccentricity,
+                    random.nextDouble() * 180, random.nextDouble() * 360, random.nextDouble() * 360,
+                    types[random.nextInt(types.length)]));
+        }
+        // Shell of one plane and its neighbours, below and just above the 0.1 degree coplanar threshold
+        double[] inclinationOffsets = {0, 0, 0.01, 0.05, 0.09, 0.11, 0.2, 0.5};
+        for (int i = 0; i < 120; i++) {
+            double offset = inclinationOffsets[i % inclinationOffsets.length];
+            satellites.add(satellite(100_000 + i, 15.05 + random.nextDouble() * 0.01, random.nextDouble() * 0.0015,
+                    53 + offset, 100 + (i % 3 == 0 ? offset : 0), random.nextDouble() * 360,
+                    types[i % types.length]));
+        }
+        // Transfer and Molniya orbits, perigee in LEO and apogee far above it
+        for (int i = 0; i < 150; i++) {
+            boolean molniya = i % 2 == 0;
+            satellites.add(satellite(200_000 + i, molniya ? 2.006 : 2.2 + random.nextDouble() * 0.2,
+                    molniya ? 0.7 + random.nextDouble() * 0.04 : 0.71 + random.nextDouble() * 0.02,
+                    molniya ? 63.4 : random.nextDouble() * 30, random.nextDouble() * 360, random.nextDouble() * 360,
+                    types[random.nextInt(types.length)]));
+        }
+        return satellites;
+    }
+
+    private static Satellite satellite(int noradId, double meanMotion, double eccentricity, double inclination,
+                                       double raan, double argPerigee, String objectType) {
+        Satellite satellite = new Satellite(noradId);
+        satellite.setMeanMotion(meanMotion);
+        satellite.setEccentricity(eccentricity);
+        satellite.setInclination(inclination);
+        satellite.setRaan(raan);
+        satellite.setArgPerigee(argPerigee);
+        satellite.setObjectType(objectType);
+        satellite.computeDerivedParameters();
+        return satellite;
+    }
+}